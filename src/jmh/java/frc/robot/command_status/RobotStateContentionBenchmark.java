@@ -0,0 +1,87 @@
+package frc.robot.command_status;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.lib.util.Clock;
+import frc.robot.lib.util.Pose;
+import frc.robot.lib.util.SimulatedClock;
+
+/**
+ * Measures contention between the odometry update (one writer thread) and
+ * readers of the latest pose (three threads, like the LoopController, auto and
+ * main robot threads).
+ *
+ * The "locked" group reads the pose the way the synchronized accessors used
+ * to; the "snapshot" group reads the volatile snapshot.  Compare the writer's
+ * time per update in the two groups to see how much readers held it up.
+ *
+ *     ./gradlew jmh -PjmhInclude=RobotStateContentionBenchmark
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RobotStateContentionBenchmark
+{
+	RobotState robotState;
+	Pose pose;
+	double time;
+
+	@Setup
+	public void setup()
+	{
+		Clock.setInstance(new SimulatedClock());
+		robotState = new RobotState();
+		pose = new Pose(10, 20, 0.5);
+	}
+
+	private void write()
+	{
+		time += 0.01;
+		robotState.addFieldToVehicleObservation(time, pose);
+	}
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(1)
+	public void lockedWriter()
+	{
+		write();
+	}
+
+	@Benchmark
+	@Group("locked")
+	@GroupThreads(3)
+	public Pose lockedReader()
+	{
+		synchronized (robotState)
+		{
+			return robotState.getLatestFieldToVehicle();
+		}
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(1)
+	public void snapshotWriter()
+	{
+		write();
+	}
+
+	@Benchmark
+	@Group("snapshot")
+	@GroupThreads(3)
+	public Pose snapshotReader()
+	{
+		return robotState.getLatestFieldToVehicle();
+	}
+}
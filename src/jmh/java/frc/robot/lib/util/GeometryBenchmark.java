@@ -0,0 +1,87 @@
+package frc.robot.lib.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Vector2d and Pose operations used every cycle by PathFollower and
+ * GoalStateLoop, in their allocating and "into" forms.
+ *
+ *     ./gradlew jmh -PjmhInclude=GeometryBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeometryBenchmark
+{
+	Vector2d a, b, vOut;
+	Pose p, q, pOut;
+	double angle;
+
+	@Setup
+	public void setup()
+	{
+		a = new Vector2d(120, 45);
+		b = new Vector2d(-30, 200);
+		vOut = new Vector2d();
+		p = new Pose(100, 50, 0.3);
+		q = new Pose(-11.5, 0, Math.PI);
+		pOut = new Pose();
+		angle = 0.7;
+	}
+
+	@Benchmark
+	public Vector2d vectorSub()
+	{
+		return a.sub(b);
+	}
+
+	@Benchmark
+	public Vector2d vectorSubInto()
+	{
+		return a.sub(b, vOut);
+	}
+
+	@Benchmark
+	public Vector2d vectorRotate()
+	{
+		return a.rotate(angle);
+	}
+
+	@Benchmark
+	public Vector2d vectorRotateInto()
+	{
+		return a.rotate(angle, vOut);
+	}
+
+	@Benchmark
+	public Pose poseChangeCoordinateSystem()
+	{
+		return q.changeCoordinateSystem(p);
+	}
+
+	@Benchmark
+	public Pose poseChangeCoordinateSystemInto()
+	{
+		return q.changeCoordinateSystem(p, pOut);
+	}
+
+	@Benchmark
+	public Pose poseInterpolate()
+	{
+		return p.interpolate(q, 0.25);
+	}
+
+	@Benchmark
+	public Pose poseInterpolateInto()
+	{
+		return p.interpolate(q, 0.25, pOut);
+	}
+}
@@ -0,0 +1,71 @@
+package frc.robot.lib.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Odometry and drive kinematics, in their allocating and primitive forms.
+ *
+ *     ./gradlew jmh -PjmhInclude=KinematicsBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KinematicsBenchmark
+{
+	Pose pose, out;
+	Kinematics.LinearAngularSpeed speed;
+	Kinematics.WheelSpeed wheelSpeed;
+
+	@Setup
+	public void setup()
+	{
+		pose = new Pose(100, 50, 0.3);
+		out = new Pose();
+		speed = new Kinematics.LinearAngularSpeed(1.2, 0.01);
+		wheelSpeed = new Kinematics.WheelSpeed();
+	}
+
+	@Benchmark
+	public Pose travelArc()
+	{
+		return Kinematics.travelArc(pose, speed);
+	}
+
+	@Benchmark
+	public Pose travelArcInto()
+	{
+		return Kinematics.travelArc(pose, 1.2, 0.01, out);
+	}
+
+	@Benchmark
+	public Pose integrateForwardKinematics()
+	{
+		return Kinematics.integrateForwardKinematics(pose, 1.1, 1.3, 0.31);
+	}
+
+	@Benchmark
+	public Pose integrateForwardKinematicsInto()
+	{
+		return Kinematics.integrateForwardKinematics(pose, 1.1, 1.3, 0.31, out);
+	}
+
+	@Benchmark
+	public Kinematics.WheelSpeed inverseKinematics()
+	{
+		return Kinematics.inverseKinematicsFromSpeedCurvature(60, 0.01);
+	}
+
+	@Benchmark
+	public Kinematics.WheelSpeed inverseKinematicsInto()
+	{
+		return Kinematics.inverseKinematicsFromSpeedCurvature(60, 0.01, wheelSpeed);
+	}
+}
@@ -0,0 +1,81 @@
+package frc.robot.lib.util;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Path following geometry run by PathFollower every cycle: finding the
+ * closest point on the path, and the lookahead point.
+ *
+ * The robot position is held still part way along the first segment, so
+ * Path.update() does the same work each call (it shortens the first segment
+ * to the closest point, which doesn't change after the first call).
+ *
+ *     ./gradlew jmh -PjmhInclude=PathBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PathBenchmark
+{
+	Path path;
+	Vector2d position;
+	Vector2d segmentStart, segmentEnd;
+	Util.ClosestPointOnSegment closestPoint;
+	double distanceFromPath;
+
+	@Setup
+	public void setup()
+	{
+		PathSegment.Options options = new PathSegment.Options(60, 48, 24, false);
+		path = new Path();
+		path.add(new Path.Waypoint(new Vector2d(  0,   0), options));
+		path.add(new Path.Waypoint(new Vector2d(120,   0), options));
+		path.add(new Path.Waypoint(new Vector2d(180,  60), options));
+		path.add(new Path.Waypoint(new Vector2d(180, 160), options));
+
+		position = new Vector2d(40, 3);
+		segmentStart = new Vector2d(0, 0);
+		segmentEnd = new Vector2d(120, 0);
+		closestPoint = new Util.ClosestPointOnSegment();
+		distanceFromPath = path.update(position);
+	}
+
+	@Benchmark
+	public Util.ClosestPointOnSegment closestPointOnSegment()
+	{
+		return Util.getClosestPointOnSegment(segmentStart, segmentEnd, position);
+	}
+
+	@Benchmark
+	public Util.ClosestPointOnSegment closestPointOnSegmentInto()
+	{
+		return Util.getClosestPointOnSegment(segmentStart, segmentEnd, position, closestPoint);
+	}
+
+	@Benchmark
+	public Optional<Vector2d[]> lineCircleIntersection()
+	{
+		return Util.getLineCircleIntersection(segmentStart, segmentEnd, position, 24);
+	}
+
+	@Benchmark
+	public double pathUpdate()
+	{
+		return path.update(position);
+	}
+
+	@Benchmark
+	public Vector2d pathLookaheadPoint()
+	{
+		return path.getLookaheadPoint(position, distanceFromPath);
+	}
+}
@@ -0,0 +1,69 @@
+package frc.robot.lib.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the PoseEstimator: an odometry update (done every loop), and a
+ * vision correction that rewinds 10 loops (100 ms of camera latency) and
+ * replays them.  Both must stay well under 1 ms on the roboRIO, and the gc
+ * profiler should show no allocation.
+ *
+ *     ./gradlew jmh -PjmhInclude=PoseEstimatorBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoseEstimatorBenchmark
+{
+	static final int kSize = 100;		// RobotState.kObservationBufferSize
+	static final double kDt = 0.01;
+	static final int kLatencyLoops = 10;
+
+	PoseEstimator estimator;
+	double time;
+
+	@Setup
+	public void setup()
+	{
+		estimator = new PoseEstimator(kSize);
+		estimator.setLandmarks(new double[] {200, 200, 100}, new double[] {50, -50, 120}, 3);
+		estimator.reset(0, 0, 0, 0);
+		for (int k = 0; k < kSize; k++)
+			predict();
+	}
+
+	private void predict()
+	{
+		time += kDt;
+		estimator.predict(time, 1.0, 0.001);
+	}
+
+	@Benchmark
+	public double predictOnly()
+	{
+		predict();
+		return estimator.getX();
+	}
+
+	@Benchmark
+	public double predictAndCorrect()
+	{
+		predict();
+		// a sighting of the landmark at (200, 50) from where the estimator thinks the robot was
+		double imageTime = time - kLatencyLoops * kDt;
+		double dx = 200 - estimator.getX(kLatencyLoops);
+		double dy = 50 - estimator.getY(kLatencyLoops);
+		double c = Math.cos(estimator.getHeading(kLatencyLoops));
+		double s = Math.sin(estimator.getHeading(kLatencyLoops));
+		estimator.addLandmarkObservation(imageTime, c * dx + s * dy + 1.0, -s * dx + c * dy - 1.0, 100);
+		return estimator.getX();
+	}
+}
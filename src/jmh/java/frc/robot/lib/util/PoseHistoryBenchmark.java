@@ -0,0 +1,84 @@
+package frc.robot.lib.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares PoseHistory with the InterpolatingTreeMap<InterpolatingDouble, Pose>
+ * it replaced in RobotState: adding an odometry pose (done every loop), and
+ * looking up an interpolated pose (done for every vision frame).
+ *
+ *     ./gradlew jmh -PjmhInclude=PoseHistoryBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoseHistoryBenchmark
+{
+	static final int kSize = 100;		// RobotState.kObservationBufferSize
+	static final double kDt = 0.01;
+
+	InterpolatingTreeMap<InterpolatingDouble, Pose> treeMap;
+	PoseHistory history;
+	Pose pose;
+	double time;
+	double lookupOffset;
+
+	@Setup
+	public void setup()
+	{
+		treeMap = new InterpolatingTreeMap<>(kSize);
+		history = new PoseHistory(kSize);
+		for (int k = 0; k < kSize; k++)
+		{
+			time = k * kDt;
+			Pose p = new Pose(k, 2 * k, 0.01 * k);
+			treeMap.put(new InterpolatingDouble(time), p);
+			history.add(time, p);
+		}
+		pose = new Pose(1, 2, 3);
+	}
+
+	// a timestamp between stored poses, as for a vision frame with latency
+	private double nextLookupTime()
+	{
+		lookupOffset += 0.0137;
+		if (lookupOffset > 0.9)
+			lookupOffset = 0;
+		return time - 0.005 - lookupOffset;
+	}
+
+	@Benchmark
+	public Pose treeMapAdd()
+	{
+		time += kDt;
+		return treeMap.put(new InterpolatingDouble(time), new Pose(pose.getX(), pose.getY(), pose.getHeading()));
+	}
+
+	@Benchmark
+	public double poseHistoryAdd()
+	{
+		time += kDt;
+		history.add(time, pose.getX(), pose.getY(), pose.getHeading());
+		return time;
+	}
+
+	@Benchmark
+	public Pose treeMapLookup()
+	{
+		return treeMap.getInterpolated(new InterpolatingDouble(nextLookupTime()));
+	}
+
+	@Benchmark
+	public Pose poseHistoryLookup()
+	{
+		return history.getInterpolated(nextLookupTime());
+	}
+}
@@ -0,0 +1,147 @@
+package frc.robot.vision;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.lib.util.Vector2d;
+
+/**
+ * GoalTracker.update() with N targets in view, as called by GoalStateLoop for
+ * each camera frame.  The targets jitter by an inch or so between frames, as
+ * they do when the robot is driving.
+ *
+ * legacyUpdate is the association loop GoalTracker used before global nearest
+ * neighbour matching: it updates at most one track per frame, so it does less
+ * work with several targets in view, but also tracks only one of them.
+ *
+ *     ./gradlew jmh -PjmhInclude=GoalTrackerBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GoalTrackerBenchmark
+{
+	static final double kFramePeriod = 1.0 / 30.0;
+	static final int kNumFrames = 64;		// precomputed frames, cycled through
+
+	@Param({"1", "2", "4", "8", "16"})
+	int numTargets;
+
+	GoalTracker tracker;
+	double[][] frameXs, frameYs;
+	List<List<Vector2d>> frames;
+	int frame;
+	double time;
+
+	List<GoalTrack> legacyTracks;
+	int legacyNextId;
+
+	@Setup
+	public void setup()
+	{
+		tracker = new GoalTracker();
+		legacyTracks = new ArrayList<>();
+		frameXs = new double[kNumFrames][numTargets];
+		frameYs = new double[kNumFrames][numTargets];
+		frames = new ArrayList<>();
+		for (int f = 0; f < kNumFrames; f++)
+		{
+			List<Vector2d> targets = new ArrayList<>();
+			for (int k = 0; k < numTargets; k++)
+			{
+				double jitter = Math.sin(f * 0.7 + k);
+				frameXs[f][k] = 200 + 40 * k + jitter;
+				frameYs[f][k] = 50 * k - jitter;
+				targets.add(new Vector2d(frameXs[f][k], frameYs[f][k]));
+			}
+			frames.add(targets);
+		}
+	}
+
+	@Benchmark
+	public GoalTracker update()
+	{
+		time += kFramePeriod;
+		frame = (frame + 1) % kNumFrames;
+		tracker.update(time, time - 0.05, frameXs[frame], frameYs[frame], numTargets);
+		return tracker;
+	}
+
+	@Benchmark
+	public List<GoalTrack> legacyUpdate()
+	{
+		time += kFramePeriod;
+		frame = (frame + 1) % kNumFrames;
+		legacyUpdate(time, time - 0.05, frames.get(frame));
+		return legacyTracks;
+	}
+
+	// GoalTracker.update() before global nearest neighbour association
+	private void legacyUpdate(double currentTime, double imageTimestamp, List<Vector2d> fieldToGoals)
+	{
+		boolean hasUpdatedTrack = false;
+		for (Vector2d target : fieldToGoals)
+		{
+			for (GoalTrack track : legacyTracks)
+			{
+				if (!hasUpdatedTrack)
+				{
+					if (legacyTryUpdate(track, currentTime, imageTimestamp, target))
+						hasUpdatedTrack = true;
+				}
+				else
+				{
+					track.emptyUpdate(currentTime);
+				}
+			}
+		}
+		for (Iterator<GoalTrack> it = legacyTracks.iterator(); it.hasNext();)
+		{
+			if (!it.next().isAlive())
+				it.remove();
+		}
+		if (legacyTracks.isEmpty())
+		{
+			for (Vector2d target : fieldToGoals)
+				legacyTracks.add(legacyMakeNewTrack(imageTimestamp, target, legacyNextId++));
+		}
+	}
+
+	// GoalTrack.makeNewTrack(), which allocated a track for each new goal
+	private static GoalTrack legacyMakeNewTrack(double timestamp, Vector2d firstObservation, int id)
+	{
+		GoalTrack track = new GoalTrack();
+		track.reset(timestamp, firstObservation.getX(), firstObservation.getY(), id);
+		return track;
+	}
+
+	// GoalTrack.tryUpdate(), which tried one observation against one track
+	private static boolean legacyTryUpdate(GoalTrack track, double currentTime, double timestamp, Vector2d newObservation)
+	{
+		if (!track.isAlive())
+			return false;
+		double distance = track.distance(newObservation.getX(), newObservation.getY(), timestamp);
+		if (distance < GoalTracker.kMaxTrackerDistance)
+		{
+			track.addObservation(currentTime, timestamp, newObservation.getX(), newObservation.getY());
+			return true;
+		}
+		else
+		{
+			// new observation was too far from smoothed observation -- ignore it
+			track.emptyUpdate(currentTime);
+			return false;
+		}
+	}
+}
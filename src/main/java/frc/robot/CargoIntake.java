@@ -20,9 +20,9 @@ import frc.robot.lib.util.FallingEdgeDetector;
 import frc.robot.lib.util.PulseTrain;
 import frc.robot.lib.util.RisingEdgeDetector;
 import frc.robot.lib.util.Util;
-import frc.robot.loops.Loop;
+import frc.robot.loops.LegacyLoop;
 
-public class CargoIntake implements Loop
+public class CargoIntake implements LegacyLoop
 {
 	// singleton class
     private static CargoIntake instance = null;
@@ -4,7 +4,6 @@ import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.can.VictorSPX;
 
-import edu.wpi.first.wpilibj.Timer;
 import frc.robot.CargoIntake.CargoDeployPositionEnum;
 import frc.robot.CargoIntake.CargoDeployStateEnum;
 import frc.robot.command_status.DriveCommand;
@@ -12,6 +11,7 @@ import frc.robot.lib.joystick.ButtonBoard;
 import frc.robot.lib.sensors.Pigeon;
 import frc.robot.lib.util.DataLogger;
 import frc.robot.lib.util.Util;
+import frc.robot.loops.CycleContext;
 import frc.robot.loops.Loop;
 import frc.robot.subsystems.Drive;
 
@@ -104,14 +104,14 @@ public class Climber implements Loop
     }
 
     @Override
-    public void onLoop()
+    public void onLoop(CycleContext _context)
     {
         tiltAngleDeg = pigeon.getPitchDeg();
         
         // do nothing unless Climber mode is enabled
         if (arm.state == CargoDeployStateEnum.CLIMBING)
         {
-            double currentTime = Timer.getFPGATimestamp();
+            double currentTime = _context.getTimestamp();		// same "now" as the other loops this cycle
             
             switch (climberState)
             {
@@ -154,7 +154,7 @@ public class Climber implements Loop
                 if (buttonBoard.getButton(Constants.kClimbingExtendButton))
                 {
                     climberState = ClimberStateEnum.LEVEL2_CLIMB;
-                    level2LastTimer = Timer.getFPGATimestamp();
+                    level2LastTimer = currentTime;
                     toggleCount = 0;
                 }
                 break;
@@ -197,7 +197,7 @@ public class Climber implements Loop
                 {
                     // arm.setPercentOutput(0.0);
                     climberState = ClimberStateEnum.LEVEL2_DRIVE_ONTO_PLATFORM;
-                    level2ChangeAngleStartTime = Timer.getFPGATimestamp();
+                    level2ChangeAngleStartTime = currentTime;
                 }
                 break;
 
@@ -215,9 +215,9 @@ public class Climber implements Loop
                 if (toggleCount == 0)
                 {
                     cylinders.extend();
-                    if (Timer.getFPGATimestamp() - level2LastTimer >= level2InitialWait)
+                    if (currentTime - level2LastTimer >= level2InitialWait)
                     {
-                        level2LastTimer = Timer.getFPGATimestamp();
+                        level2LastTimer = currentTime;
                         toggleCount++;
                     }
                 }
@@ -227,9 +227,9 @@ public class Climber implements Loop
                     {
                         // toggleCount is odd
                         cylinders.retract();
-                        if (Timer.getFPGATimestamp() - level2LastTimer >= level2ToggleWait)
+                        if (currentTime - level2LastTimer >= level2ToggleWait)
                         {
-                            level2LastTimer = Timer.getFPGATimestamp();
+                            level2LastTimer = currentTime;
                             toggleCount++;
                         }
                     }
@@ -237,9 +237,9 @@ public class Climber implements Loop
                     {
                         // toggleCount is even
                         cylinders.extend();
-                        if (Timer.getFPGATimestamp() - level2LastTimer >= level2ToggleWait)
+                        if (currentTime - level2LastTimer >= level2ToggleWait)
                         {
-                            level2LastTimer = Timer.getFPGATimestamp();
+                            level2LastTimer = currentTime;
                             toggleCount++;
                         }
                     }
@@ -23,6 +23,8 @@ public class Constants extends ConstantsBase {
     }
 
     public static double kLoopDt = 0.01;
+    public static double kVisionLoopDt = 0.01;         // polls for new Limelight frames (~30 frames/sec), so each is picked up within a cycle
+    public static double kMechanismLoopDt = 0.02;      // state machines for hatch and cargo intake
     public static double kDriveWatchdogTimerThreshold = 0.500;
     public static int kTalonTimeoutMs = 5; // ms
     public static int kTalonPidIdx = 0; // 0 for non-cascaded PIDs, 1 for cascaded PIDs
@@ -122,6 +124,9 @@ public class Constants extends ConstantsBase {
     public static double kVisionMaxAccel  = 20.0; // inches/sec^2		
     public static double kTargetWidthInches = 14.625;    
     public static double kTargetHeightInches = 6.00;
+    public static double kTargetStripWidthInches = 2.0;     // each target is two strips of tape,
+    public static double kTargetStripLengthInches = 5.5;    // tilted toward each other
+    public static double kTargetStripAngleDeg = 14.5;
     public static double kCenterOfTargetHeightInches = 27.75;
 
     public static double kCargoCameraPoseX        =  0.00;	// camera location with respect to robot center of rotation, X axis is in direction of travel
@@ -1,7 +1,6 @@
 package frc.robot;
 
 import edu.wpi.first.wpilibj.Solenoid;
-import edu.wpi.first.wpilibj.Timer;
 import frc.robot.lib.joystick.ArcadeDriveJoystick;
 import frc.robot.lib.joystick.ButtonBoard;
 import frc.robot.lib.joystick.JoystickControlsBase;
@@ -9,6 +8,7 @@ import frc.robot.lib.joystick.SelectedJoystick;
 import frc.robot.lib.util.DataLogger;
 import frc.robot.lib.util.FallingEdgeDetector;
 import frc.robot.lib.util.RisingEdgeDetector;
+import frc.robot.loops.CycleContext;
 import frc.robot.loops.Loop;
 
 public class Hatch implements Loop {
@@ -69,7 +69,8 @@ public class Hatch implements Loop {
 
     boolean drivingHatch;
     @Override
-    public void onLoop() {
+    public void onLoop(CycleContext _context) {
+        double currentTime = _context.getTimestamp();
         drivingHatch = !SelectedJoystick.getInstance().getDrivingCargo();
 
         JoystickControlsBase controls = ArcadeDriveJoystick.getInstance();
@@ -97,7 +98,7 @@ public class Hatch implements Loop {
             close();
             extend();
             if(grabButtonRelease){
-               mStartTime = Timer.getFPGATimestamp();
+               mStartTime = currentTime;
                 state = HatchStateEnum.PICKUP;
             }
         break;
@@ -105,7 +106,7 @@ public class Hatch implements Loop {
         case PICKUP:
             extend();
             open();
-            if ( Timer.getFPGATimestamp() - mStartTime >= mTimeToWait)    
+            if ( currentTime - mStartTime >= mTimeToWait)    
             {
                 state = HatchStateEnum.HOLDHATCH;
             }
@@ -121,7 +122,7 @@ public class Hatch implements Loop {
                 extend();
                 if (extendButtonRelease)    
                 {
-                    mStartTime = Timer.getFPGATimestamp();
+                    mStartTime = currentTime;
                     state = HatchStateEnum.SCORE;
                 }
             }
@@ -130,7 +131,7 @@ public class Hatch implements Loop {
         case SCORE:
          close();
          extend();
-         if ( Timer.getFPGATimestamp() - mStartTime >= mTimeToWait)    
+         if ( currentTime - mStartTime >= mTimeToWait)    
             {
                 state = HatchStateEnum.RELEASE;
             }
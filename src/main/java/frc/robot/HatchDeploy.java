@@ -9,7 +9,6 @@ import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 
 import edu.wpi.first.wpilibj.Solenoid;
-import edu.wpi.first.wpilibj.Timer;
 import frc.robot.lib.joystick.ArcadeDriveJoystick;
 import frc.robot.lib.joystick.ButtonBoard;
 import frc.robot.lib.joystick.JoystickControlsBase;
@@ -17,6 +16,7 @@ import frc.robot.lib.joystick.SelectedJoystick;
 import frc.robot.lib.util.DataLogger;
 import frc.robot.lib.util.FallingEdgeDetector;
 import frc.robot.lib.util.RisingEdgeDetector;
+import frc.robot.loops.CycleContext;
 import frc.robot.loops.Loop;
 
 public class HatchDeploy implements Loop
@@ -168,7 +168,8 @@ public class HatchDeploy implements Loop
 
     boolean drivingHatch;
     @Override
-    public void onLoop() {
+    public void onLoop(CycleContext _context) {
+        double currentTime = _context.getTimestamp();
         drivingHatch = !SelectedJoystick.getInstance().getDrivingCargo();
 
         JoystickControlsBase controls = ArcadeDriveJoystick.getInstance();
@@ -202,7 +203,7 @@ public class HatchDeploy implements Loop
             setTarget(bumperAngle);
             if (hButtonPush)  
             {    
-                mStartTime = Timer.getFPGATimestamp();
+                mStartTime = currentTime;
                  
                 state = HatchDeployStateEnum.GROUND;
             }
@@ -212,7 +213,7 @@ public class HatchDeploy implements Loop
             }
             if (humanButtonPush)  
             {    
-                mStartTime = Timer.getFPGATimestamp();
+                mStartTime = currentTime;
                  
                 state = HatchDeployStateEnum.HUMAN_STATION;
             }
@@ -224,7 +225,7 @@ public class HatchDeploy implements Loop
             // allow us to get out of this mode with button presses
             if (hButtonPush)  
             {    
-                mStartTime = Timer.getFPGATimestamp();
+                mStartTime = currentTime;
                  
                 state = HatchDeployStateEnum.GROUND;
             }
@@ -245,7 +246,7 @@ public class HatchDeploy implements Loop
             
         case GROUND:
             setTarget(groundAngle);
-            if ( Timer.getFPGATimestamp() - mStartTime >= mTimeToWait)    
+            if ( currentTime - mStartTime >= mTimeToWait)    
             {
                 state = HatchDeployStateEnum.TO_BUMPER;
             }
@@ -253,7 +254,7 @@ public class HatchDeploy implements Loop
 
             case HUMAN_STATION:
             setTarget(HumanStationAngle);
-            if ( Timer.getFPGATimestamp() - mStartTime >= hTimeToWait)    
+            if ( currentTime - mStartTime >= hTimeToWait)    
             {
                 state = HatchDeployStateEnum.TO_BUMPER;
             }
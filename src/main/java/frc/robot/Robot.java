@@ -28,6 +28,7 @@ import frc.robot.lib.util.Pose;
 import frc.robot.loops.DriveLoop;
 import frc.robot.loops.GoalStateLoop;
 import frc.robot.loops.LoopController;
+import frc.robot.loops.OdometrySampler;
 import frc.robot.loops.RobotStateLoop;
 import frc.robot.subsystems.Drive;
 import frc.robot.subsystems.Superstructure;
@@ -64,6 +65,8 @@ public class Robot extends TimedRobot {
 	OperationalMode operationalMode = OperationalMode.getInstance();
 
 	final boolean PRACTICE_BOT = true;		// set to true when running on practice bot without Cargo Intake / Climber
+	final boolean VISION_CORRECTION = true;	// correct odometry with sightings of vision targets, once autonomous has set the start position
+	final boolean PARALLEL_LOOPS = false;	// set to true to run independent loops on both roboRIO cores (see LoopController.addDependencies)
 
 
     public Robot() {
@@ -86,15 +89,25 @@ public class Robot extends TimedRobot {
     		loopController.register(drive.getVelocityPIDLoop());
     		loopController.register(DriveLoop.getInstance());
        		loopController.register(RobotStateLoop.getInstance());
-    		loopController.register(VisionLoop.getInstance());
-			loopController.register(GoalStateLoop.getInstance());
-			loopController.register(Hatch.getInstance());
+    		loopController.register(VisionLoop.getInstance(), Constants.kVisionLoopDt);
+			loopController.register(GoalStateLoop.getInstance(), Constants.kVisionLoopDt);
+			loopController.register(Hatch.getInstance(), Constants.kMechanismLoopDt);
 			if (!PRACTICE_BOT)
 			{
-				loopController.register(CargoIntake.getInstance());
-				loopController.register(Climber.getInstance());
+				loopController.register(CargoIntake.getInstance(), Constants.kMechanismLoopDt);
+				loopController.register(Climber.getInstance());		// Climber PID assumes kLoopDt
 			}
 
+			// loop dependencies (used when loops run in parallel)
+			loopController.addDependencies(DriveLoop.getInstance(), drive.getVelocityPIDLoop());
+			loopController.addDependencies(RobotStateLoop.getInstance(), DriveLoop.getInstance());
+			loopController.addDependencies(GoalStateLoop.getInstance(), RobotStateLoop.getInstance(), VisionLoop.getInstance());
+			if (!PRACTICE_BOT)
+			{
+				loopController.addDependencies(Climber.getInstance(), CargoIntake.getInstance(), DriveLoop.getInstance());
+			}
+			loopController.setExecutionMode(PARALLEL_LOOPS ? LoopController.ExecutionMode.PARALLEL : LoopController.ExecutionMode.SERIAL);
+
 			selectedJoystick.update();
     		
     		// set datalogger and time info
@@ -102,10 +115,15 @@ public class Robot extends TimedRobot {
     		
     		robotLogger = DataLogController.getRobotLogController();
     		robotLogger.register(this.getLogger());
+			robotLogger.register(loopController.getLogger());
+			robotLogger.register(robotLogger.getLogger());
+			robotLogger.register(DataLogController.getAutoLogController().getLogger());
 			robotLogger.register(Drive.getInstance().getLogger());
 			robotLogger.register(drive.getCommand().getLogger());
 			robotLogger.register(DriveState.getInstance().getLogger());
 			robotLogger.register(RobotState.getInstance().getLogger());
+			if (OdometrySampler.kEnabled)
+				robotLogger.register(OdometrySampler.getInstance().getLogger());
 			robotLogger.register(VisionLoop.getInstance().getLogger());
 			robotLogger.register(VisionTargetList.getInstance().getLogger());
 			robotLogger.register(GoalStateLoop.getInstance().getLogger());
@@ -176,6 +194,11 @@ public class Robot extends TimedRobot {
 			autoModeExecuter = null;
 
 			stopAll(); // stop all actuators
+
+			// heap allocation and GC collection times over the last enabled period
+			System.out.print(loopController.getAllocationReport());
+			loopController.resetAllocationStats();
+
 			loopController.start();
 		}
 		catch (Throwable t)
@@ -247,6 +270,7 @@ public class Robot extends TimedRobot {
 			autoModeExecuter = new AutoModeExecuter();
 			autoModeExecuter.setAutoMode( smartDashboardInteractions.getAutoModeSelection() );
 			setInitialPose( smartDashboardInteractions.getStartPosition() );
+			robotState.setVisionCorrectionEnabled(VISION_CORRECTION);	// pose is now in field coordinates
 
 			autoModeExecuter.start();
     	}
@@ -403,6 +427,7 @@ public class Robot extends TimedRobot {
 	@Override
 	public void robotPeriodic()
 	{
+		robotState.setDrivingCargo(selectedJoystick.getDrivingCargo());	// selects camera and shooter frames for the loops
 		loopController.run();		
 		robotLogger.log();
 	}
@@ -4,11 +4,10 @@ package frc.robot.auto;
 
 import frc.robot.Constants;
 import frc.robot.auto.actions.Action;
+import frc.robot.lib.util.Clock;
 import frc.robot.lib.util.DataLogController;
 import frc.robot.lib.util.Pose;
 
-import edu.wpi.first.wpilibj.Timer;
-
 /**
  * An abstract class that is the basis of the robot's autonomous routines. This
  * is implemented in auto.modes (which are routines that do actions).
@@ -20,6 +19,10 @@ public abstract class AutoModeBase
     protected Pose initialPose = new Pose();
     
     static DataLogController autoLogger = DataLogController.getAutoLogController();
+
+    // where runAction() sends the action's log (turn both off to run headless, off the robot)
+    public static boolean logToFile = true;
+    public static boolean logToSmartDashboard = true;
     
     protected abstract void routine() throws AutoModeEndedException;
 
@@ -67,23 +70,23 @@ public abstract class AutoModeBase
     {
         autoLogger.deregister();						// remove previous action loggers from registry
         autoLogger.register(action.getLogger());
-        autoLogger.setOutputMode(true, true);
+        autoLogger.setOutputMode(logToFile, logToSmartDashboard);
         
         action.start();
         while (isActiveWithThrow() && !action.isFinished()) 
         {
-        	double currTime = Timer.getFPGATimestamp();
-        	double nextTime = Timer.getFPGATimestamp() + updatePeriod;
+            Clock clock = Clock.getInstance();
+        	double nextTime = clock.getTime() + updatePeriod;
         	
             action.update();
             autoLogger.log();
 
-        	currTime = Timer.getFPGATimestamp();
-            long waitTime = (long) ((nextTime-currTime) * 1000.0);	// attempt to run thread every updatePeriod seconds
-            waitTime = Math.max(waitTime, 0);						// avoid negative waits
+        	double currTime = clock.getTime();
+            double waitTime = nextTime - currTime;	// attempt to run thread every updatePeriod seconds
+            waitTime = Math.max(waitTime, 0);		// avoid negative waits
             try
             {
-                Thread.sleep(waitTime);
+                clock.sleep(waitTime);			// a SimulatedClock advances time here instead of waiting
             } 
             catch (InterruptedException e) 
             {
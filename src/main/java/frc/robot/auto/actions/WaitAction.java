@@ -1,9 +1,9 @@
 package frc.robot.auto.actions;
 
 
+import frc.robot.lib.util.Clock;
 import frc.robot.lib.util.DataLogger;
 
-import edu.wpi.first.wpilibj.Timer;
 
 /**
  * Action to wait for a given amount of time To use this Action, call
@@ -21,7 +21,7 @@ public class WaitAction implements Action {
 
     @Override
     public void start() {
-        mStartTime = Timer.getFPGATimestamp();
+        mStartTime = Clock.getInstance().getTime();
     }
 
     @Override
@@ -31,7 +31,7 @@ public class WaitAction implements Action {
     
     @Override
     public boolean isFinished() {
-        return Timer.getFPGATimestamp() - mStartTime >= mTimeToWait;
+        return Clock.getInstance().getTime() - mStartTime >= mTimeToWait;
     }
 
     @Override
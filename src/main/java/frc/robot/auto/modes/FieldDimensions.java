@@ -398,6 +398,21 @@ public class FieldDimensions
         return rv;
     }
 
+    // positions of all vision targets, on both sides of the field (landmarks for PoseEstimator)
+    public static Vector2d[] getVisionTargetPositions()
+    {
+        Vector2d[] leftSide = { kCargoFrontHatchPosition, kCargoSide1HatchPosition, kCargoSide2HatchPosition, kCargoSide3HatchPosition,
+                                kNearRocketHatchPosition, kFarRocketHatchPosition, kHumanStationHatchPosition };
+
+        Vector2d[] rv = new Vector2d[2 * leftSide.length];
+        for (int k = 0; k < leftSide.length; k++)
+        {
+            rv[2*k]   = leftSide[k];
+            rv[2*k+1] = leftSide[k].conj();
+        }
+        return rv;
+    }
+
 	private static final DataLogger logger = new DataLogger()
     {
         @Override
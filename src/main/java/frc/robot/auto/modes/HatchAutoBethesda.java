@@ -2,7 +2,6 @@ package frc.robot.auto.modes;
 
 import java.util.Arrays;
 
-import edu.wpi.first.wpilibj.Timer;
 import frc.robot.SmartDashboardInteractions;
 import frc.robot.auto.AutoModeBase;
 import frc.robot.auto.AutoModeEndedException;
@@ -19,6 +18,7 @@ import frc.robot.auto.actions.WaitAction;
 import frc.robot.command_status.DriveState;
 import frc.robot.command_status.RobotState;
 import frc.robot.lib.sensors.Limelight;
+import frc.robot.lib.util.Clock;
 import frc.robot.lib.util.Path;
 import frc.robot.lib.util.Path.Waypoint;
 import frc.robot.lib.util.PathSegment;
@@ -267,7 +267,7 @@ public class HatchAutoBethesda extends AutoModeBase {
     {
         RobotState robotState = RobotState.getInstance();
         DriveState driveState = DriveState.getInstance();
-        double currentTime = Timer.getFPGATimestamp();
+        double currentTime = Clock.getInstance().getTime();
         
         Vector2d currentPosition = FieldDimensions.getRobotPositionAtTarget(_target);
         double currentHeading = driveState.getHeading();
@@ -279,7 +279,7 @@ public class HatchAutoBethesda extends AutoModeBase {
     {
         RobotState robotState = RobotState.getInstance();
         DriveState driveState = DriveState.getInstance();
-        double currentTime = Timer.getFPGATimestamp();
+        double currentTime = Clock.getInstance().getTime();
         
         Vector2d currentPosition = FieldDimensions.getRobotPositionAtHumanStation();
         double currentHeading = driveState.getHeading();
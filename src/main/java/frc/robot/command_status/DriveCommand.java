@@ -2,12 +2,12 @@ package frc.robot.command_status;
 
 
 
+import frc.robot.lib.util.Clock;
 import frc.robot.lib.util.DataLogger;
 import frc.robot.lib.util.Kinematics.WheelSpeed;
 
 import com.ctre.phoenix.motorcontrol.*;
 
-import edu.wpi.first.wpilibj.Timer;
 
 /**
  * A drivetrain command consisting of the left, right motor settings and whether the brake mode is enabled.  
@@ -123,7 +123,7 @@ public class DriveCommand
     	return rv; 
     }	
     
-    public synchronized void   setCommandTime() { commandTime = Timer.getFPGATimestamp(); }
+    public synchronized void   setCommandTime() { commandTime = Clock.getInstance().getTime(); }
     public synchronized double getCommandTime() { return commandTime; } 
     
     
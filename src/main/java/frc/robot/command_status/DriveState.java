@@ -77,24 +77,38 @@ public class DriveState
     
 	private final DataLogger logger = new DataLogger()
     {
+		final int talonControlModeChannel = addStringChannel("DriveState/TalonControlMode");
+		final int neutralModeChannel      = addStringChannel("DriveState/neutralMode");
+		final int lMotorCurrentChannel    = addDoubleChannel("DriveState/lMotorCurrent");
+		final int rMotorCurrentChannel    = addDoubleChannel("DriveState/rMotorCurrent");
+		final int lMotorStatusChannel     = addDoubleChannel("DriveState/lMotorStatus");
+		final int rMotorStatusChannel     = addDoubleChannel("DriveState/rMotorStatus");
+		final int lSpeedChannel           = addDoubleChannel("DriveState/lSpeed");
+		final int rSpeedChannel           = addDoubleChannel("DriveState/rSpeed");
+		final int lDistanceChannel        = addDoubleChannel("DriveState/lDistance");
+		final int rDistanceChannel        = addDoubleChannel("DriveState/rDistance");
+		final int lPIDErrorChannel        = addIntChannel("DriveState/lPIDError");
+		final int rPIDErrorChannel        = addIntChannel("DriveState/rPIDError");
+		final int headingChannel          = addDoubleChannel("DriveState/Heading");
+
         @Override
         public void log()
         {
         	synchronized (DriveState.this)
         	{
-	    		put("DriveState/TalonControlMode", talonControlMode.toString() );
-	    		put("DriveState/neutralMode", (neutralMode == NeutralMode.Coast ? "Coast" : "Brake"));
-	    		put("DriveState/lMotorCurrent", lMotorCurrent );
-	    		put("DriveState/rMotorCurrent", rMotorCurrent );
-	    		put("DriveState/lMotorStatus", lMotorStatus );
-	    		put("DriveState/rMotorStatus", rMotorStatus );
-	    		put("DriveState/lSpeed", lSpeedInchesPerSec );	// used by RaspberryPi set LED velocity display
-	    		put("DriveState/rSpeed", rSpeedInchesPerSec );	// used by RaspberryPi set LED velocity display
-	    		put("DriveState/lDistance", lDistanceInches );
-	    		put("DriveState/rDistance", rDistanceInches );
-	    		put("DriveState/lPIDError",  lMotorPIDError );
-	    		put("DriveState/rPIDError", rMotorPIDError );
-	    		put("DriveState/Heading", getHeadingDeg() );
+	    		set(talonControlModeChannel, talonControlMode.toString() );
+	    		set(neutralModeChannel, (neutralMode == NeutralMode.Coast ? "Coast" : "Brake"));
+	    		set(lMotorCurrentChannel, lMotorCurrent );
+	    		set(rMotorCurrentChannel, rMotorCurrent );
+	    		set(lMotorStatusChannel, lMotorStatus );
+	    		set(rMotorStatusChannel, rMotorStatus );
+	    		set(lSpeedChannel, lSpeedInchesPerSec );	// used by RaspberryPi set LED velocity display
+	    		set(rSpeedChannel, rSpeedInchesPerSec );	// used by RaspberryPi set LED velocity display
+	    		set(lDistanceChannel, lDistanceInches );
+	    		set(rDistanceChannel, rDistanceInches );
+	    		set(lPIDErrorChannel,  lMotorPIDError );
+	    		set(rPIDErrorChannel, rMotorPIDError );
+	    		set(headingChannel, getHeadingDeg() );
         	}
         }
     };
@@ -0,0 +1,120 @@
+package frc.robot.command_status;
+
+import frc.robot.Constants;
+import frc.robot.lib.util.Pose;
+
+/**
+ * Fixed transforms from the robot (vehicle) frame to frames mounted on the
+ * robot: the cameras and the hatch/cargo "shooter" ends.
+ *
+ * Each transform is registered once, with the sine and cosine of its angle
+ * precomputed.  Mapping a field-to-robot pose into a field-to-frame pose is
+ * then one sin/cos of the robot heading and a handful of multiplies, the same
+ * result as robotToFrame.changeCoordinateSystem(fieldToRobot).
+ *
+ * Register any changed transforms during robot initialization, before the
+ * loops start: queries do not lock.
+ */
+public class FrameTree
+{
+	public enum Frame { HATCH_CAMERA, CARGO_CAMERA, HATCH_SHOOTER, CARGO_SHOOTER }
+
+	private static final int kNumFrames = Frame.values().length;
+
+	private final double[] xs = new double[kNumFrames];
+	private final double[] ys = new double[kNumFrames];
+	private final double[] headings = new double[kNumFrames];
+	private final double[] cosines = new double[kNumFrames];
+	private final double[] sines = new double[kNumFrames];
+	private final Pose[] poses = new Pose[kNumFrames];		// same transforms, for callers that want a Pose
+
+	public FrameTree()
+	{
+		register(Frame.HATCH_CAMERA,  Constants.kHatchCameraPoseX, Constants.kHatchCameraPoseY, Constants.kHatchCameraPoseThetaRad);
+		register(Frame.CARGO_CAMERA,  Constants.kCargoCameraPoseX, Constants.kCargoCameraPoseY, Constants.kCargoCameraPoseThetaRad);
+		register(Frame.HATCH_SHOOTER, 0, 0, Math.PI);
+		register(Frame.CARGO_SHOOTER, 0, 0, 0);
+	}
+
+	/**
+	 * Set the pose of _frame relative to the robot
+	 */
+	public void register(Frame _frame, double _x, double _y, double _heading)
+	{
+		int i = _frame.ordinal();
+		xs[i] = _x;
+		ys[i] = _y;
+		headings[i] = _heading;
+		cosines[i] = Math.cos(_heading);
+		sines[i] = Math.sin(_heading);
+		poses[i] = new Pose(_x, _y, _heading);
+	}
+
+	public Pose getRobotToFrame(Frame _frame)
+	{
+		return poses[_frame.ordinal()];
+	}
+
+	/**
+	 * Pose of _frame in the field, given the pose of the robot in the field.
+	 * Writes x, y and heading to _fieldToFrame[0..2], without allocating.
+	 */
+	public void getFieldToFrame(Frame _frame, double _x, double _y, double _heading, double[] _fieldToFrame)
+	{
+		int i = _frame.ordinal();
+		double c = Math.cos(_heading);
+		double s = Math.sin(_heading);
+		_fieldToFrame[0] = _x + c * xs[i] - s * ys[i];
+		_fieldToFrame[1] = _y + s * xs[i] + c * ys[i];
+		_fieldToFrame[2] = _heading + headings[i];
+	}
+
+	public Pose getFieldToFrame(Frame _frame, Pose _fieldToRobot)
+	{
+		return getFieldToFrame(_frame, _fieldToRobot, new Pose());
+	}
+
+	/**
+	 * As above, writing the result into _out (which may be _fieldToRobot)
+	 */
+	public Pose getFieldToFrame(Frame _frame, Pose _fieldToRobot, Pose _out)
+	{
+		int i = _frame.ordinal();
+		double x = _fieldToRobot.getX();
+		double y = _fieldToRobot.getY();
+		double heading = _fieldToRobot.getHeading();
+		double c = Math.cos(heading);
+		double s = Math.sin(heading);
+		return _out.set(x + c * xs[i] - s * ys[i], y + s * xs[i] + c * ys[i], heading + headings[i]);
+	}
+
+	/**
+	 * Position of a point given in _frame's coordinates, relative to the robot.
+	 * Uses the precomputed sine and cosine of the frame.  Writes x and y to
+	 * _robotToPoint[0..1].
+	 */
+	public void getRobotToPoint(Frame _frame, double _x, double _y, double[] _robotToPoint)
+	{
+		int i = _frame.ordinal();
+		_robotToPoint[0] = xs[i] + cosines[i] * _x - sines[i] * _y;
+		_robotToPoint[1] = ys[i] + sines[i] * _x + cosines[i] * _y;
+	}
+
+	/**
+	 * Position in the field of a point given in _frame's coordinates, given
+	 * the pose of the robot in the field.  The point is moved to the robot
+	 * frame with the precomputed sine and cosine, then needs only one sin/cos
+	 * of the robot heading.  Writes x and y to _fieldToPoint[0..1].
+	 */
+	public void getFieldToPoint(Frame _frame, Pose _fieldToRobot, double _x, double _y, double[] _fieldToPoint)
+	{
+		getRobotToPoint(_frame, _x, _y, _fieldToPoint);
+		double rx = _fieldToPoint[0];
+		double ry = _fieldToPoint[1];
+		double heading = _fieldToRobot.getHeading();
+		double c = Math.cos(heading);
+		double s = Math.sin(heading);
+		_fieldToPoint[0] = _fieldToRobot.getX() + c * rx - s * ry;
+		_fieldToPoint[1] = _fieldToRobot.getY() + s * rx + c * ry;
+	}
+}
@@ -10,7 +10,7 @@ import frc.robot.lib.util.Vector2d;
 
 
 // Sorted list of range & bearing to each tracked target
-// First item in list has the highest score (determined by GoalTracker.TrackReportComparator)
+// First item in list has the highest score (determined by the GoalTracker scoring terms)
 
 public class GoalStates
 {
@@ -72,7 +72,7 @@ public class GoalStates
 			double distanceToGoal = shooterToGoal.length();
 			double bearingToGoal = shooterToGoal.angle() - _fieldToShooter.getHeading(); 	// bearing relative to shooter's heading
 		
-			fieldToGoal = _fieldToGoal;
+			fieldToGoal = new Vector2d(_fieldToGoal);	// GoalTracker reuses its reports
 	        horizontalDistance = distanceToGoal;
 	        relativeBearing = bearingToGoal;
 	        trackId = _trackId;
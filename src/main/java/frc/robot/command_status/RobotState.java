@@ -1,13 +1,13 @@
 package frc.robot.command_status;
 
-import edu.wpi.first.wpilibj.Timer;
-import frc.robot.Constants;
-import frc.robot.lib.joystick.SelectedJoystick;
+import frc.robot.auto.modes.FieldDimensions;
+import frc.robot.lib.util.Clock;
 import frc.robot.lib.util.DataLogger;
-import frc.robot.lib.util.InterpolatingDouble;
-import frc.robot.lib.util.InterpolatingTreeMap;
 import frc.robot.lib.util.Kinematics;
 import frc.robot.lib.util.Pose;
+import frc.robot.lib.util.PoseEstimator;
+import frc.robot.lib.util.PoseHistory;
+import frc.robot.lib.util.Vector2d;
 
 /**
  * RobotState keeps track of the poses of various coordinate frames throughout
@@ -64,155 +64,357 @@ public class RobotState
 
 	public static final int kObservationBufferSize = 100;
 	public static final double kMaxTargetAge = 0.4;
+	public static double kAccelFilterTimeConstant = 0.1;	// seconds, low-pass filter on measured acceleration
 
-	private InterpolatingTreeMap<InterpolatingDouble, Pose> fieldToRobot;
+	private final PoseHistory fieldToRobot = new PoseHistory(kObservationBufferSize);
+	private final PoseEstimator estimator = new PoseEstimator(kObservationBufferSize);
 	private Kinematics.LinearAngularSpeed robotSpeed;
+	private double linearAccel;			// filtered, inches/sec^2
+	private double angularAccel;		// filtered, radians/sec^2
+	private double prevSpeedTimestamp;
+	private volatile boolean visionCorrectionEnabled = false;	// correct odometry drift with sightings of known vision targets
+
+	/**
+	 * Immutable copy of the latest odometry.  It is replaced (never modified)
+	 * on each odometry update, and published through a volatile reference, so
+	 * the auto, teleop and loop threads can read the latest pose and speed
+	 * without locking, and without ever blocking the odometry update.
+	 */
+	public static class Snapshot
+	{
+		public final double timestamp;
+		public final Pose fieldToVehicle;
+		public final Kinematics.LinearAngularSpeed speed;
+		public final double linearAccel;
+		public final double angularAccel;
+
+		public Snapshot(double _timestamp, Pose _fieldToVehicle, Kinematics.LinearAngularSpeed _speed)
+		{
+			this(_timestamp, _fieldToVehicle, _speed, 0, 0);
+		}
+
+		public Snapshot(double _timestamp, Pose _fieldToVehicle, Kinematics.LinearAngularSpeed _speed, double _linearAccel, double _angularAccel)
+		{
+			timestamp = _timestamp;
+			fieldToVehicle = _fieldToVehicle;
+			speed = _speed;
+			linearAccel = _linearAccel;
+			angularAccel = _angularAccel;
+		}
+	}
+
+	private volatile Snapshot snapshot;
 
     private double gyroCorrection;
+    private double prevGyroHeading;
     
     private double lPrevDistance = 0;
     private double rPrevDistance = 0;
     
-    public RobotState() { reset( new Pose() ); }
+    public RobotState() 
+    {
+    	Vector2d[] targets = FieldDimensions.getVisionTargetPositions();
+    	double[] xs = new double[targets.length];
+    	double[] ys = new double[targets.length];
+    	for (int k = 0; k < targets.length; k++)
+    	{
+    		xs[k] = targets[k].getX();
+    		ys[k] = targets[k].getY();
+    	}
+    	estimator.setLandmarks(xs, ys, targets.length);
+
+    	reset( new Pose() ); 
+    }
 
 	public synchronized void reset(Pose _newPose)
 	{
-		double currentTime = Timer.getFPGATimestamp();
+		double currentTime = Clock.getInstance().getTime();
 		DriveState driveState = DriveState.getInstance();
 
 		// calibrate initial position to initial pose (set by autonomous mode)
-		fieldToRobot = new InterpolatingTreeMap<>(kObservationBufferSize);
-		fieldToRobot.put(new InterpolatingDouble(currentTime), _newPose);
+		fieldToRobot.clear();
+		fieldToRobot.add(currentTime, _newPose);
+		estimator.reset(currentTime, _newPose.getX(), _newPose.getY(), _newPose.getHeading());
 
 		// calculate gyro heading correction for the desired initial pose (as set by autonomous mode)
 		double desiredHeading = _newPose.getHeading();
 		double gyroHeading = driveState.getHeading();
 		gyroCorrection = gyroHeading - desiredHeading; 	// subtract gyroCorrection from actual gyro heading to get
 														// desired orientation
+		prevGyroHeading = desiredHeading;
 
 		robotSpeed = new Kinematics.LinearAngularSpeed(0, 0);
+		linearAccel = 0;
+		angularAccel = 0;
+		prevSpeedTimestamp = currentTime;
+		publishSnapshot();
 
 		setPrevEncoderDistance(driveState.getLeftDistanceInches(), driveState.getRightDistanceInches());
 	}
 
-	public void setPrevEncoderDistance(double _lPrevDistance, double _rPrevDistance)
+	public synchronized void setPrevEncoderDistance(double _lPrevDistance, double _rPrevDistance)
 	{
         lPrevDistance = _lPrevDistance;
         rPrevDistance = _rPrevDistance;     
 	}
 	
+	// must be called holding the lock, after fieldToRobot or robotSpeed change
+	private void publishSnapshot()
+	{
+		snapshot = new Snapshot(fieldToRobot.getLatestTimestamp(), fieldToRobot.getLatest(), robotSpeed, linearAccel, angularAccel);
+	}
+
+	/** latest pose and speed, without locking */
+	public Snapshot getSnapshot()
+	{
+		return snapshot;
+	}
+
+	// history lookups still lock, but only for the binary search
 	public synchronized Pose getFieldToVehicle(double _timestamp) 
 	{
-        return fieldToRobot.getInterpolated(new InterpolatingDouble(_timestamp));
+        return fieldToRobot.getInterpolated(_timestamp);
+    }
+
+	// as above, writing the pose into _out without allocating
+	public synchronized Pose getFieldToVehicle(double _timestamp, Pose _out) 
+	{
+        return fieldToRobot.getInterpolated(_timestamp, _out);
+    }
+
+    public Pose getLatestFieldToVehicle() 
+    {
+        return snapshot.fieldToVehicle;
+    }
+
+    /**
+     * Predict where the robot will be _lookaheadTime seconds after the latest
+     * odometry, assuming constant linear and angular acceleration
+     */
+    public Pose getPredictedFieldToVehicle(double _lookaheadTime) 
+    {
+        return getPredictedFieldToVehicle(_lookaheadTime, new Pose());
     }
 
-    public synchronized Pose getLatestFieldToVehicle() 
+    // as above, writing the pose into _out without allocating
+    public Pose getPredictedFieldToVehicle(double _lookaheadTime, Pose _out) 
     {
-        return fieldToRobot.lastEntry().getValue();
+    	Snapshot s = snapshot;		// read once, so pose, speed and acceleration are consistent
+    	double distance = predictDisplacement(s.speed.linearSpeed,  s.linearAccel,  _lookaheadTime);
+    	double dHeading = predictDisplacement(s.speed.angularSpeed, s.angularAccel, _lookaheadTime);
+        return Kinematics.travelArc(s.fieldToVehicle, distance, dHeading, _out);
     }
 
-    public synchronized Pose getPredictedFieldToVehicle(double _lookaheadTime) 
+    /**
+     * Predict the robot pose at several lookahead times in one pass, from the
+     * same snapshot, without allocating.  Results are written to _x[k], _y[k]
+     * and _heading[k] for k = 0 .. _n-1.
+     */
+    public void getPredictedFieldToVehicle(double[] _lookaheadTimes, int _n, double[] _x, double[] _y, double[] _heading)
     {
-    	Kinematics.LinearAngularSpeed speed = new Kinematics.LinearAngularSpeed(robotSpeed.linearSpeed * _lookaheadTime, robotSpeed.angularSpeed * _lookaheadTime);
-        return Kinematics.travelArc(getLatestFieldToVehicle(), speed);
+    	Snapshot s = snapshot;
+    	double x0 = s.fieldToVehicle.getX();
+    	double y0 = s.fieldToVehicle.getY();
+    	double heading0 = s.fieldToVehicle.getHeading();
+
+    	for (int k = 0; k < _n; k++)
+    	{
+    		double D      = predictDisplacement(s.speed.linearSpeed,  s.linearAccel,  _lookaheadTimes[k]);
+    		double dTheta = predictDisplacement(s.speed.angularSpeed, s.angularAccel, _lookaheadTimes[k]);
+
+    		// same constant curvature arc as Kinematics.travelArc()
+    		double L = D;
+    		if (Math.abs(dTheta) > 1e-9)
+    			L = 2*D*Math.sin(dTheta/2)/dTheta;
+    		double avgHeading = heading0 + dTheta/2;
+
+    		_x[k] = x0 + L * Math.cos(avgHeading);
+    		_y[k] = y0 + L * Math.sin(avgHeading);
+    		_heading[k] = heading0 + dTheta;
+    	}
+    }
+
+    // distance (or angle) traveled in time _t, starting at speed _v with constant
+    // acceleration _a.  A decelerating robot stops rather than reversing.
+    private static double predictDisplacement(double _v, double _a, double _t)
+    {
+    	if (_v * _a < 0)
+    	{
+    		double tStop = -_v / _a;
+    		if (_t > tStop)
+    			_t = tStop;
+    	}
+    	return _v * _t + 0.5 * _a * _t * _t;
     }
 
     public synchronized void addFieldToVehicleObservation(double _timestamp, Pose _observation)
     {
-        fieldToRobot.put(new InterpolatingDouble(_timestamp), _observation);
+        fieldToRobot.add(_timestamp, _observation);
+        publishSnapshot();
+    }
+
+    private synchronized void addOdometry(double _timestamp, double _distance, double _dHeading, Kinematics.LinearAngularSpeed _speed)
+    {
+        estimator.predict(_timestamp, _distance, _dHeading);
+        fieldToRobot.add(_timestamp, estimator.getX(), estimator.getY(), estimator.getHeading());
+        updateAcceleration(_timestamp, _speed);
+        robotSpeed = _speed;
+        publishSnapshot();
     }
 
+    // low-pass filter the change in speed between odometry updates
+    private void updateAcceleration(double _timestamp, Kinematics.LinearAngularSpeed _speed)
+    {
+        double dt = _timestamp - prevSpeedTimestamp;
+        if (dt <= 0)
+            return;
 
-    public void generateOdometryFromSensors(double _time, double _lEncoderDistance, double _rEncoderDistance, 
-    		                                double _lEncoderSpeed, double _rEncoderSpeed, double _gyroAngle) 
+        double alpha = dt / (kAccelFilterTimeConstant + dt);
+        linearAccel  += alpha * ((_speed.linearSpeed  - robotSpeed.linearSpeed)  / dt - linearAccel);
+        angularAccel += alpha * ((_speed.angularSpeed - robotSpeed.angularSpeed) / dt - angularAccel);
+        prevSpeedTimestamp = _timestamp;
+    }
+
+    /**
+     * Vision correction matches sightings to the landmarks, which are in field
+     * coordinates, so only enable it once the pose has been set to a known
+     * position on the field (e.g. the autonomous start position).  Until then
+     * it would pull the pose toward whichever landmark happens to be nearest.
+     */
+    public void setVisionCorrectionEnabled(boolean _enabled) { visionCorrectionEnabled = _enabled; }
+    public boolean isVisionCorrectionEnabled() { return visionCorrectionEnabled; }
+
+    /**
+     * Correct the pose with a sighting of a vision target
+     * @param _imageTimestamp time the image was captured
+     * @param _robotToTarget position of target relative to robot (X axis forward, Y axis left)
+     * @param _range distance from camera to target
+     */
+    public synchronized void addVisionObservation(double _imageTimestamp, double _robotToTargetX, double _robotToTargetY, double _range)
     {
-        Pose lastPose = getLatestFieldToVehicle();
+        if (!visionCorrectionEnabled)
+            return;
+
+        if (estimator.addLandmarkObservation(_imageTimestamp, _robotToTargetX, _robotToTargetY, _range))
+        {
+            // update history from the corrected pose onwards
+            for (int age = estimator.getNumReplayed(); age >= 0; age--)
+            {
+                fieldToRobot.add(estimator.getTimestamp(age), estimator.getX(age), estimator.getY(age), estimator.getHeading(age));
+            }
+            publishSnapshot();
+        }
+    }
+
 
+    public synchronized void generateOdometryFromSensors(double _time, double _lEncoderDistance, double _rEncoderDistance, 
+    		                                double _lEncoderSpeed, double _rEncoderSpeed, double _gyroAngle) 
+    {
         // get change in encoder distance from last call
         double lDeltaDistance = _lEncoderDistance - lPrevDistance; 
         double rDeltaDistance = _rEncoderDistance - rPrevDistance;
         
         setPrevEncoderDistance(_lEncoderDistance, _rEncoderDistance);
 
-        Pose odometry = Kinematics.integrateForwardKinematics(lastPose, lDeltaDistance, rDeltaDistance, _gyroAngle - gyroCorrection);
+        // get change in heading from last call
+        double gyroHeading = _gyroAngle - gyroCorrection;
+        double dHeading = gyroHeading - prevGyroHeading;
+        prevGyroHeading = gyroHeading;
+
         Kinematics.LinearAngularSpeed speed = Kinematics.forwardKinematics(_lEncoderSpeed, _rEncoderSpeed);
         
-        addFieldToVehicleObservation(_time, odometry);	// store odometry
-        robotSpeed = speed;								// used in getPredictedFieldToVehicle()
+        addOdometry(_time, (lDeltaDistance + rDeltaDistance)/2, dHeading, speed);	// store odometry, and speed for getPredictedFieldToVehicle()
     }
 
     public double getSpeed()
     {
-    	return robotSpeed.linearSpeed;
+    	return snapshot.speed.linearSpeed;
     }
     
+	// The cargo or hatch camera/shooter is selected by the main robot thread (see setDrivingCargo()),
+	// so the loops don't read joystick state
+
+	private final FrameTree frames = new FrameTree();
+	private volatile boolean drivingCargo = false;
+
+	public void setDrivingCargo(boolean _drivingCargo) { drivingCargo = _drivingCargo; }
+	public boolean getDrivingCargo() { return drivingCargo; }
+
+	public FrameTree getFrameTree() { return frames; }
+	public FrameTree.Frame getCameraFrame()  { return drivingCargo ? FrameTree.Frame.CARGO_CAMERA  : FrameTree.Frame.HATCH_CAMERA; }
+	public FrameTree.Frame getShooterFrame() { return drivingCargo ? FrameTree.Frame.CARGO_SHOOTER : FrameTree.Frame.HATCH_SHOOTER; }
+
 	// Field to camera functions
+	// (the versions taking _out write the pose into it, without allocating)
 
-	// public static final Pose robotToCamera = new Pose(Constants.kHatchCameraPoseX, Constants.kHatchCameraPoseY,
-	// 		Constants.kHatchCameraPoseThetaRad);
+	public Pose getRobotToCamera() {
+		return frames.getRobotToFrame(getCameraFrame());
+	}
 
-	public synchronized Pose getFieldToCamera(double timestamp) {
-		Pose robotToCamera = new Pose(Constants.kHatchCameraPoseX, Constants.kHatchCameraPoseY, Constants.kHatchCameraPoseThetaRad);
-		if (SelectedJoystick.getInstance().getDrivingCargo())
-		{
-			robotToCamera = new Pose(Constants.kCargoCameraPoseX, Constants.kCargoCameraPoseY, Constants.kCargoCameraPoseThetaRad);
-		}
-		Pose fieldToRobot = getFieldToVehicle(timestamp);
-		Pose fieldToCamera = robotToCamera.changeCoordinateSystem(fieldToRobot);
-		return fieldToCamera;
+	public Pose getFieldToCamera(double timestamp) {
+		return getFieldToCamera(getCameraFrame(), timestamp, new Pose());
 	}
 
-	public synchronized Pose getPredictedFieldToCamera(double _lookaheadTime) {
-		Pose robotToCamera = new Pose(Constants.kHatchCameraPoseX, Constants.kHatchCameraPoseY, Constants.kHatchCameraPoseThetaRad);
-		if (SelectedJoystick.getInstance().getDrivingCargo())
-		{
-			robotToCamera = new Pose(Constants.kCargoCameraPoseX, Constants.kCargoCameraPoseY, Constants.kCargoCameraPoseThetaRad);
-		}
-		Pose fieldToRobot = getPredictedFieldToVehicle(_lookaheadTime);
-		Pose fieldToCamera = robotToCamera.changeCoordinateSystem(fieldToRobot);
-		return fieldToCamera;
+	// for a frame taken by a given camera, which may not be the one selected now
+	public Pose getFieldToCamera(FrameTree.Frame _cameraFrame, double timestamp) {
+		return getFieldToCamera(_cameraFrame, timestamp, new Pose());
 	}
 
-	// Field to camera functions
+	public Pose getFieldToCamera(FrameTree.Frame _cameraFrame, double timestamp, Pose _out) {
+		return frames.getFieldToFrame(_cameraFrame, getFieldToVehicle(timestamp, _out), _out);
+	}
 
+	public Pose getPredictedFieldToCamera(double _lookaheadTime) {
+		return getPredictedFieldToCamera(_lookaheadTime, new Pose());
+	}
 
-	public synchronized Pose getFieldToShooter(double timestamp) {
-		Pose robotToShooter = new Pose(0, 0, Math.PI);
-		if (SelectedJoystick.getInstance().getDrivingCargo())
-		{
-			robotToShooter = new Pose(0, 0, 0);
-		}
+	public Pose getPredictedFieldToCamera(double _lookaheadTime, Pose _out) {
+		return frames.getFieldToFrame(getCameraFrame(), getPredictedFieldToVehicle(_lookaheadTime, _out), _out);
+	}
+
+	// Field to shooter functions
 
-		Pose fieldToRobot = getFieldToVehicle(timestamp);
-		Pose fieldToShooter = robotToShooter.changeCoordinateSystem(fieldToRobot);
-		return fieldToShooter;
+	public Pose getFieldToShooter(double timestamp) {
+		return getFieldToShooter(timestamp, new Pose());
 	}
 
-	public synchronized Pose getPredictedFieldToShooter(double _lookaheadTime) {
-		Pose robotToShooter = new Pose(0, 0, Math.PI);
-		if (SelectedJoystick.getInstance().getDrivingCargo())
-		{
-			robotToShooter = new Pose(0, 0, 0);
-		}
+	public Pose getFieldToShooter(double timestamp, Pose _out) {
+		return frames.getFieldToFrame(getShooterFrame(), getFieldToVehicle(timestamp, _out), _out);
+	}
+
+	public Pose getPredictedFieldToShooter(double _lookaheadTime) {
+		return getPredictedFieldToShooter(_lookaheadTime, new Pose());
+	}
 
-		Pose fieldToRobot = getPredictedFieldToVehicle(_lookaheadTime);
-		Pose fieldToShooter = robotToShooter.changeCoordinateSystem(fieldToRobot);
-		return fieldToShooter;
+	public Pose getPredictedFieldToShooter(double _lookaheadTime, Pose _out) {
+		return frames.getFieldToFrame(getShooterFrame(), getPredictedFieldToVehicle(_lookaheadTime, _out), _out);
 	}
     
 
 	private final DataLogger logger = new DataLogger()
     {
+		final int positionXChannel  = addDoubleChannel("RobotState/positionX");
+		final int positionYChannel  = addDoubleChannel("RobotState/positionY");
+		final int headingDegChannel = addDoubleChannel("RobotState/headingDeg");
+		final int linearAccelChannel  = addDoubleChannel("RobotState/linearAccel");
+		final int angularAccelChannel = addDoubleChannel("RobotState/angularAccelDeg");
+		final int visionCorrectionsChannel = addIntChannel("RobotState/visionCorrections");
+		final int visionRejectedChannel    = addIntChannel("RobotState/visionRejected");
+		final int visionInnovationChannel  = addDoubleChannel("RobotState/visionInnovation");
+
         @Override
         public void log()
         {
-        	synchronized (RobotState.this)
-        	{
-	            Pose odometry = getLatestFieldToVehicle();
-	            put("RobotState/positionX",  odometry.getX());
-	            put("RobotState/positionY",  odometry.getY());
-	            put("RobotState/headingDeg", odometry.getHeadingDeg());
-        	}
+            Snapshot s = snapshot;
+            Pose odometry = s.fieldToVehicle;
+            set(positionXChannel,  odometry.getX());
+            set(positionYChannel,  odometry.getY());
+            set(headingDegChannel, odometry.getHeadingDeg());
+            set(linearAccelChannel,  s.linearAccel);
+            set(angularAccelChannel, s.angularAccel * Pose.radiansToDegrees);
+            set(visionCorrectionsChannel, estimator.getNumCorrections());
+            set(visionRejectedChannel,    estimator.getNumRejected());
+            set(visionInnovationChannel,  estimator.getLastInnovation());
         }
     };
     
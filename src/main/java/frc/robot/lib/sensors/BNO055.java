@@ -3,8 +3,8 @@ package frc.robot.lib.sensors;
 import java.util.TimerTask;
 
 import edu.wpi.first.wpilibj.I2C;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.lib.util.Clock;
 
 /**
  * Attribution: copied from FRC team 2168, https://github.com/jcorcoran/BNO055_FRC/blob/master/src/org/team2168/utils/BNO055.java
@@ -452,7 +452,7 @@ public class BNO055 extends GyroBase {
 	 */
 	private void update() 
 	{
-		currentTime = Timer.getFPGATimestamp(); //seconds
+		currentTime = Clock.getInstance().getTime(); //seconds
 		if(!initialized) 
 		{
 			//System.out.println("State: " + state + ".  curr: " + currentTime + ", next: " + nextTime);
@@ -475,14 +475,14 @@ public class BNO055 extends GyroBase {
 					//Sensor present, go to next state
 					sensorPresent = true;
 					state++;
-					nextTime = Timer.getFPGATimestamp() + 0.050;
+					nextTime = Clock.getInstance().getTime() + 0.050;
 				}
 				break;
 			case 1:
 				if(currentTime >= nextTime) 
 				{
 					//Switch to config mode (just in case since this is the default)
-					nextTime = Timer.getFPGATimestamp() + 0.050;	// grabbing time before setMode, since setMode has it's own delay
+					nextTime = Clock.getInstance().getTime() + 0.050;	// grabbing time before setMode, since setMode has it's own delay
 					setMode(opmode_t.OPERATION_MODE_CONFIG.getVal());
 					state++;
 				}
@@ -502,7 +502,7 @@ public class BNO055 extends GyroBase {
 					//Sensor present, go to next state
 					state++;
 					//Log current time
-					nextTime = Timer.getFPGATimestamp() + 0.050;
+					nextTime = Clock.getInstance().getTime() + 0.050;
 				}
 				break;
 			case 4:
@@ -511,7 +511,7 @@ public class BNO055 extends GyroBase {
 				{
 					//Switch to config mode (just in case since this is the default)
 					setMode(opmode_t.OPERATION_MODE_CONFIG.getVal());
-					nextTime = Timer.getFPGATimestamp() + 0.050;
+					nextTime = Clock.getInstance().getTime() + 0.050;
 					state++;
 				}
 				break;
@@ -521,7 +521,7 @@ public class BNO055 extends GyroBase {
 				//Write accelerometer calibration values
 				if(currentTime >= nextTime) 
 				{
-					nextTime = Timer.getFPGATimestamp() + 0.050;	// grabbing time before setCalibrationOffsets, since setCalibrationOffsets has it's own delay
+					nextTime = Clock.getInstance().getTime() + 0.050;	// grabbing time before setCalibrationOffsets, since setCalibrationOffsets has it's own delay
 					setCalibrationOffsets();
 					state++;
 				}
@@ -532,7 +532,7 @@ public class BNO055 extends GyroBase {
 				{
 					/* Set to normal power mode */
 					write8(reg_t.BNO055_PWR_MODE_ADDR, (byte) powermode_t.POWER_MODE_NORMAL.getVal());
-					nextTime = Timer.getFPGATimestamp() + 0.050;
+					nextTime = Clock.getInstance().getTime() + 0.050;
 					state++;
 				}
 				break;
@@ -541,7 +541,7 @@ public class BNO055 extends GyroBase {
 				if(currentTime >= nextTime) 
 				{
 					write8(reg_t.BNO055_PAGE_ID_ADDR, (byte) 0x00);
-					nextTime = Timer.getFPGATimestamp() + 0.050;
+					nextTime = Clock.getInstance().getTime() + 0.050;
 					state++;
 				}
 				break;
@@ -549,7 +549,7 @@ public class BNO055 extends GyroBase {
 				if(currentTime >= nextTime) 
 				{
 					write8(reg_t.BNO055_SYS_TRIGGER_ADDR, (byte) 0x80);	// CLK_SEL = 1: selects external oscillator
-					nextTime = Timer.getFPGATimestamp() + 0.500;
+					nextTime = Clock.getInstance().getTime() + 0.500;
 					state++;
 				}
 				break;
@@ -557,7 +557,7 @@ public class BNO055 extends GyroBase {
 				//Set operating mode to mode requested at instantiation
 				if(currentTime >= nextTime) 
 				{
-					nextTime = Timer.getFPGATimestamp() + 1.050;	// grabbing time before setMode, since setMode has it's own delay
+					nextTime = Clock.getInstance().getTime() + 1.050;	// grabbing time before setMode, since setMode has it's own delay
 					setMode(requestedMode);
 					state++;
 				}
@@ -592,11 +592,11 @@ public class BNO055 extends GyroBase {
 		double headingDiff = 0.0;
 		
 		// Read vector data (6 bytes)
-		double startTime = Timer.getFPGATimestamp();
+		double startTime = Clock.getInstance().getTime();
 		readLen(requestedVectorType.getVal(), positionVector);
 		
 		// Diagnostics for checking how long read operation took
-		double endTime = Timer.getFPGATimestamp();
+		double endTime = Clock.getInstance().getTime();
 		readDurationLast = (endTime - startTime);
 		if (readDurationLast > READ_TOO_LONG_THRESHOLD) {
 			readDurationOver++;
@@ -675,10 +675,10 @@ public class BNO055 extends GyroBase {
 			
 			// Allow 19ms to switch into CONFIG mode, 7ms to switch out of it.
 			// Just use 50ms for now, since we won't be switching much
-			nextTime = Timer.getFPGATimestamp() + 0.050;
-			currentTime = Timer.getFPGATimestamp();
+			nextTime = Clock.getInstance().getTime() + 0.050;
+			currentTime = Clock.getInstance().getTime();
 			while (currentTime < nextTime) {
-				currentTime = Timer.getFPGATimestamp();
+				currentTime = Clock.getInstance().getTime();
 			}
 		}
 	}
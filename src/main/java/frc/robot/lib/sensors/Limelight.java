@@ -3,7 +3,9 @@ package frc.robot.lib.sensors;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTablesJNI;
 import edu.wpi.first.wpilibj.Timer;
+import frc.robot.lib.util.Clock;
 import frc.robot.lib.util.Vector2d;
 
 // import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
@@ -47,6 +49,23 @@ public class Limelight
     private String tableName;
     private int version;
 
+    // entries are looked up once, rather than by name on every read
+    private final NetworkTableEntry tvEntry, txEntry, tyEntry, taEntry, tsEntry, tlEntry;
+    private final NetworkTableEntry tcornxEntry, tcornyEntry;
+    private final NetworkTableEntry ledModeEntry, camModeEntry, pipelineEntry, streamEntry, snapshotEntry;
+    private final NetworkTableEntry[] txRawEntries, tyRawEntries, taRawEntries, tsRawEntries;
+    private final NetworkTableEntry[] cxRawEntries, cyRawEntries;
+    private static final double[] kEmptyArray = new double[0];
+
+    // new frame detection: frames are identified by the value of one marker entry, so a frame whose
+    // entries arrive split across NetworkTables updates is still counted once.  The marker is the
+    // heartbeat (hb), which firmware with a heartbeat increments every frame, or else the pipeline
+    // latency (tl), which differs from frame to frame but not always.
+    private final NetworkTableEntry hbEntry;
+    private double lastFrameMarker = Double.NaN;
+    private long frameCount = 0;
+    private double frameArrivalTime = 0;
+
     /**
      * Using the Default Limelight NT table
      */
@@ -64,6 +83,43 @@ public class Limelight
         table = NetworkTableInstance.getDefault().getTable(tableName);
         version = _version;
 
+        tvEntry = table.getEntry("tv");
+        txEntry = table.getEntry("tx");
+        tyEntry = table.getEntry("ty");
+        taEntry = table.getEntry("ta");
+        tsEntry = table.getEntry("ts");
+        tlEntry = table.getEntry("tl");
+        tcornxEntry = table.getEntry("tcornx");
+        tcornyEntry = table.getEntry("tcorny");
+        ledModeEntry  = table.getEntry("ledMode");
+        camModeEntry  = table.getEntry("camMode");
+        pipelineEntry = table.getEntry("pipeline");
+        streamEntry   = table.getEntry("stream");
+        snapshotEntry = table.getEntry("snapshot");
+
+        int numRaw = AdvancedTarget.values().length;
+        txRawEntries = new NetworkTableEntry[numRaw];
+        tyRawEntries = new NetworkTableEntry[numRaw];
+        taRawEntries = new NetworkTableEntry[numRaw];
+        tsRawEntries = new NetworkTableEntry[numRaw];
+        for (int k = 0; k < numRaw; k++)
+        {
+            txRawEntries[k] = table.getEntry("tx" + k);
+            tyRawEntries[k] = table.getEntry("ty" + k);
+            taRawEntries[k] = table.getEntry("ta" + k);
+            tsRawEntries[k] = table.getEntry("ts" + k);
+        }
+        int numCrosshairs = AdvancedCrosshair.values().length;
+        cxRawEntries = new NetworkTableEntry[numCrosshairs];
+        cyRawEntries = new NetworkTableEntry[numCrosshairs];
+        for (int k = 0; k < numCrosshairs; k++)
+        {
+            cxRawEntries[k] = table.getEntry("cx" + k);
+            cyRawEntries[k] = table.getEntry("cy" + k);
+        }
+
+        hbEntry = table.getEntry("hb");
+
         kCameraFocalLengthInPixels[V1] = kImageHorizCenterPixels / Math.atan(kCameraHorizFOVRad[V1]/2.0 * kFOVError[V1]);
         kCameraFocalLengthInPixels[V2] = kImageHorizCenterPixels / Math.atan(kCameraHorizFOVRad[V2]/2.0 * kFOVError[V2]);
     }
@@ -157,6 +213,128 @@ public class Limelight
         return tableName;
     }
 
+    /**
+     * Number of frames received from the Limelight so far.  Compare with the
+     * count seen last time to tell whether a new frame has arrived.
+     * 
+     * Frames are counted when this is called, and only when the frame marker
+     * (hb, or tl on firmware without a heartbeat) changes value, so two frames
+     * between calls count once.  Without a heartbeat, a frame with the same
+     * pipeline latency as the previous frame is not counted.
+     */
+    public synchronized long getFrameCount()
+    {
+        NetworkTableEntry marker = hbEntry.exists() ? hbEntry : tlEntry;
+        double value = marker.getDouble(Double.NaN);
+        if (!Double.isNaN(value) && value != lastFrameMarker)
+        {
+            lastFrameMarker = value;
+            frameCount++;
+
+            // convert NT time to Clock time
+            double age = (NetworkTablesJNI.now() - marker.getLastChange()) * 1e-6;
+            frameArrivalTime = Clock.getInstance().getTime() - age;
+        }
+        return frameCount;
+    }
+
+    /**
+     * Time (from Clock) at which the latest frame counted by getFrameCount()
+     * arrived.  Subtract getTotalLatencyMs() to get the time the image was
+     * captured.
+     */
+    public synchronized double getFrameArrivalTime()
+    {
+        return frameArrivalTime;
+    }
+
+    /**
+     * The values the Limelight published for one frame (as nearly as
+     * snapshot() can tell).  Allocate one and reuse it with snapshot().
+     */
+    public static class FrameData
+    {
+        public long frameCount;             // getFrameCount() when read
+        public double arrivalTime;          // getFrameArrivalTime() when read
+        public boolean targetFound;         // tv
+        public double hAngleRad;            // tx, positive to the left (as getTargetHorizontalAngleRad())
+        public double vAngleRad;            // ty
+        public double areaPercent;          // ta
+        public double skewDeg;              // ts
+        public double pipelineLatencyMs;    // tl
+        public double totalLatencyMs;       // tl + image capture latency
+        public double[] xCorners = new double[8];   // tcornx (grown if needed)
+        public double[] yCorners = new double[8];   // tcorny
+        public int numXCorners, numYCorners;
+
+        // raw (ungrouped) contours, in normalized screen space (-1 to 1); an area of 0 means no contour
+        public final double[] rawX = new double[kNumRawContours];          // tx0, tx1, tx2
+        public final double[] rawY = new double[kNumRawContours];          // ty0, ty1, ty2
+        public final double[] rawArea = new double[kNumRawContours];       // ta0, ta1, ta2
+        public final double[] rawSkew = new double[kNumRawContours];       // ts0, ts1, ts2
+
+        public double getImageCaptureTimestamp() { return arrivalTime - totalLatencyMs / 1000.0; }
+    }
+
+    public static final int kNumRawContours = 3;        // the Limelight posts tx0..tx2 etc.
+    private static final int kMaxSnapshotAttempts = 3;
+
+    /**
+     * Read the latest frame into _frame in one pass, using the cached entries.
+     * 
+     * This is best effort.  NetworkTables updates the Limelight's values one
+     * entry at a time, so a read can catch a frame that is partly written.
+     * The frame marker (see getFrameCount()) is checked before and after
+     * reading, and the read is repeated if it changed.  A read can still mix two frames if the rest of the newer frame arrives
+     * after the final check.
+     * 
+     * tcornx and tcorny are only read when a target is found, because
+     * NetworkTables returns a newly allocated copy of an array on every read.
+     */
+    public void snapshot(FrameData _frame)
+    {
+        for (int attempt = 0; attempt < kMaxSnapshotAttempts; attempt++)
+        {
+            long count = getFrameCount();
+            _frame.frameCount = count;
+            _frame.arrivalTime = getFrameArrivalTime();
+            _frame.targetFound = (tvEntry.getDouble(0) != 0.0);
+            _frame.hAngleRad = -txEntry.getDouble(0.0) * Vector2d.degreesToRadians;
+            _frame.vAngleRad =  tyEntry.getDouble(0.0) * Vector2d.degreesToRadians;
+            _frame.areaPercent = taEntry.getDouble(0.0);
+            _frame.skewDeg = tsEntry.getDouble(0.0);
+            _frame.pipelineLatencyMs = tlEntry.getDouble(0.0);
+            _frame.totalLatencyMs = _frame.pipelineLatencyMs + kImageCaptureLatencyMs;
+
+            _frame.numXCorners = 0;
+            _frame.numYCorners = 0;
+            if (_frame.targetFound)
+            {
+                double[] xCorn = tcornxEntry.getDoubleArray(kEmptyArray);
+                double[] yCorn = tcornyEntry.getDoubleArray(kEmptyArray);
+                if (_frame.xCorners.length < xCorn.length)
+                    _frame.xCorners = new double[xCorn.length];
+                if (_frame.yCorners.length < yCorn.length)
+                    _frame.yCorners = new double[yCorn.length];
+                System.arraycopy(xCorn, 0, _frame.xCorners, 0, xCorn.length);
+                System.arraycopy(yCorn, 0, _frame.yCorners, 0, yCorn.length);
+                _frame.numXCorners = xCorn.length;
+                _frame.numYCorners = yCorn.length;
+            }
+
+            for (int k = 0; k < kNumRawContours; k++)
+            {
+                _frame.rawX[k]    = txRawEntries[k].getDouble(0.0);
+                _frame.rawY[k]    = tyRawEntries[k].getDouble(0.0);
+                _frame.rawArea[k] = taRawEntries[k].getDouble(0.0);
+                _frame.rawSkew[k] = tsRawEntries[k].getDouble(0.0);
+            }
+
+            if (getFrameCount() == count)
+                break;      // frame marker unchanged while reading
+        }
+    }
+
     /**
      * tv Whether the limelight has any valid targets (0 or 1)
      * 
@@ -164,8 +342,7 @@ public class Limelight
      */
     public boolean getIsTargetFound()
     {
-        NetworkTableEntry tv = table.getEntry("tv");
-        double v = tv.getDouble(0);
+        double v = tvEntry.getDouble(0);
         if (v == 0.0f)
         {
             return false;
@@ -183,8 +360,7 @@ public class Limelight
      */
     public double getTargetHorizontalAngleRad()
     {
-        NetworkTableEntry tx = table.getEntry("tx");
-        double x = -tx.getDouble(0.0);      // turns to left (negative x) result in positive theta
+        double x = -txEntry.getDouble(0.0);      // turns to left (negative x) result in positive theta
         return x * Vector2d.degreesToRadians;
     }
 
@@ -195,19 +371,18 @@ public class Limelight
      */
     public double getTargetVerticalAngleRad()
     {
-        NetworkTableEntry ty = table.getEntry("ty");
-        double y = ty.getDouble(0.0);
+        double y = tyEntry.getDouble(0.0);
         return y * Vector2d.degreesToRadians;
     }
 
     public double[] getXCorners()
     {
-        return table.getEntry("tcornx").getDoubleArray(new double[0]);
+        return tcornxEntry.getDoubleArray(kEmptyArray);
     }
 
     public double[] getYCorners()
     {
-        return table.getEntry("tcorny").getDoubleArray(new double[0]);
+        return tcornyEntry.getDoubleArray(kEmptyArray);
     }
 
 
@@ -245,6 +420,29 @@ public class Limelight
 		return boundingRectangle;
 	}
 
+	/**
+	 * Bounding rectangle of the corners in _frame, written to _boundingRectangle
+	 */
+	public BoundingRectangle getBoundingRectangle(FrameData _frame, BoundingRectangle _boundingRectangle)
+	{
+		_boundingRectangle.xMin = Double.POSITIVE_INFINITY;
+		_boundingRectangle.xMax = Double.NEGATIVE_INFINITY;
+		_boundingRectangle.yMin = Double.POSITIVE_INFINITY;
+		_boundingRectangle.yMax = Double.NEGATIVE_INFINITY;
+
+		for (int k=0; k<_frame.numXCorners; k++)
+		{
+			_boundingRectangle.xMin = Math.min(_boundingRectangle.xMin, _frame.xCorners[k]);
+			_boundingRectangle.xMax = Math.max(_boundingRectangle.xMax, _frame.xCorners[k]);
+		}
+		for (int k=0; k<_frame.numYCorners; k++)
+		{
+			_boundingRectangle.yMin = Math.min(_boundingRectangle.yMin, _frame.yCorners[k]);
+			_boundingRectangle.yMax = Math.max(_boundingRectangle.yMax, _frame.yCorners[k]);
+		}
+		return _boundingRectangle;
+	}
+
     public class BoundingAngles 
     {
 		public double hWidthRad, vWidthRad;
@@ -264,6 +462,17 @@ public class Limelight
         return boundingAngles;
     }
 
+    public BoundingAngles getBoundingAnglesRad(BoundingRectangle _boundingRectangle, BoundingAngles _boundingAngles)
+    {
+        _boundingAngles.hWidthRad = horizPixelToAngleRad(_boundingRectangle.xMax) - horizPixelToAngleRad(_boundingRectangle.xMin);
+        _boundingAngles.vWidthRad =  vertPixelToAngleRad(_boundingRectangle.yMax) -  vertPixelToAngleRad(_boundingRectangle.yMin);
+        return _boundingAngles;
+    }
+
+    // raw contour coordinates (normalized screen space, -1 to 1) to pixels
+    public double normalizedToHorizPixel(double _x) { return kImageHorizCenterPixels + _x * kImageWidthPixels / 2.0; }
+    public double normalizedToVertPixel(double _y)  { return kImageVertCenterPixels  - _y * kImageHeightPixels / 2.0; }    // +y is up
+
     public double horizPixelToAngleRad(double _pixel)
     {
         return Math.atan( (_pixel-kImageHorizCenterPixels) / kCameraFocalLengthInPixels[version] );
@@ -281,8 +490,7 @@ public class Limelight
      */
     public double getTargetAreaPercentage()
     {
-        NetworkTableEntry ta = table.getEntry("ta");
-        double a = ta.getDouble(0.0);
+        double a = taEntry.getDouble(0.0);
         return a;
     }
 
@@ -293,8 +501,7 @@ public class Limelight
      */
     public double getSkewRotation()
     {
-        NetworkTableEntry ts = table.getEntry("ts");
-        double s = ts.getDouble(0.0);
+        double s = tsEntry.getDouble(0.0);
         return s;
     }
 
@@ -306,14 +513,13 @@ public class Limelight
      */
     public double getPipelineLatency()
     {
-        NetworkTableEntry tl = table.getEntry("tl");
-        double l = tl.getDouble(0.0);
+        double l = tlEntry.getDouble(0.0);
         return l;
     }
 
     private void resetPipelineLatency()
     {
-        table.getEntry("tl").setValue(0.0);
+        tlEntry.setValue(0.0);
     }
 
     public double getTotalLatencyMs()
@@ -334,7 +540,7 @@ public class Limelight
      */
     public void setLEDMode(LedMode ledMode)
     {
-        table.getEntry("ledMode").setValue(ledMode.getValue());
+        ledModeEntry.setValue(ledMode.getValue());
     }
 
     /**
@@ -344,8 +550,7 @@ public class Limelight
      */
     public LedMode getLEDMode()
     {
-        NetworkTableEntry ledMode = table.getEntry("ledMode");
-        double led = ledMode.getDouble(0.0);
+        double led = ledModeEntry.getDouble(0.0);
         LedMode mode = LedMode.getByValue(led);
         return mode;
     }
@@ -360,7 +565,7 @@ public class Limelight
 
     public void setCamMode(CamMode camMode)
     {
-        table.getEntry("camMode").setValue(camMode.getValue());
+        camModeEntry.setValue(camMode.getValue());
     }
 
     /**
@@ -370,8 +575,7 @@ public class Limelight
      */
     public CamMode getCamMode()
     {
-        NetworkTableEntry camMode = table.getEntry("camMode");
-        double cam = camMode.getDouble(0.0);
+        double cam = camModeEntry.getDouble(0.0);
         CamMode mode = CamMode.getByValue(cam);
         return mode;
     }
@@ -410,7 +614,7 @@ public class Limelight
             pipeline = 9;
             throw new IllegalArgumentException("Pipeline can not be greater than nine");
         }
-        table.getEntry("pipeline").setValue(pipeline);
+        pipelineEntry.setValue(pipeline);
     }
 
     /**
@@ -420,8 +624,7 @@ public class Limelight
      */
     public double getPipeline()
     {
-        NetworkTableEntry pipeline = table.getEntry("pipeline");
-        double pipe = pipeline.getDouble(0.0);
+        double pipe = pipelineEntry.getDouble(0.0);
         return pipe;
     }
 
@@ -432,8 +635,7 @@ public class Limelight
      */
     public Integer getPipelineInt()
     {
-        NetworkTableEntry pipeline = table.getEntry("pipeline");
-        Integer pipe = (int) pipeline.getDouble(0.0);
+        Integer pipe = (int) pipelineEntry.getDouble(0.0);
         return pipe;
     }
 
@@ -449,13 +651,12 @@ public class Limelight
      */
     public void setStream(StreamType stream)
     {
-        table.getEntry("stream").setValue(stream.getValue());
+        streamEntry.setValue(stream.getValue());
     }
 
     public StreamType getStream()
     {
-        NetworkTableEntry stream = table.getEntry("stream");
-        double st = stream.getDouble(0.0);
+        double st = streamEntry.getDouble(0.0);
         StreamType mode = StreamType.getByValue(st);
         return mode;
     }
@@ -469,13 +670,12 @@ public class Limelight
      */
     public void setSnapshot(Snapshot snapshot)
     {
-        table.getEntry("snapshot").setValue(snapshot.getValue());
+        snapshotEntry.setValue(snapshot.getValue());
     }
 
     public Snapshot getSnapshot()
     {
-        NetworkTableEntry snapshot = table.getEntry("snapshot");
-        double snshot = snapshot.getDouble(0.0);
+        double snshot = snapshotEntry.getDouble(0.0);
         Snapshot mode = Snapshot.getByValue(snshot);
         return mode;
     }
@@ -491,29 +691,25 @@ public class Limelight
 
     public double getAdvancedRotationToTarget(AdvancedTarget raw)
     {
-        NetworkTableEntry txRaw = table.getEntry("tx" + Integer.toString(raw.getValue()));
-        double x = txRaw.getDouble(0.0);
+        double x = txRawEntries[raw.getValue()].getDouble(0.0);
         return x;
     }
 
     public double getAdvancedDegVerticalToTarget(AdvancedTarget raw)
     {
-        NetworkTableEntry tyRaw = table.getEntry("ty" + Integer.toString(raw.getValue()));
-        double y = tyRaw.getDouble(0.0);
+        double y = tyRawEntries[raw.getValue()].getDouble(0.0);
         return y;
     }
 
     public double getAdvancedTargetArea(AdvancedTarget raw)
     {
-        NetworkTableEntry taRaw = table.getEntry("ta" + Integer.toString(raw.getValue()));
-        double a = taRaw.getDouble(0.0);
+        double a = taRawEntries[raw.getValue()].getDouble(0.0);
         return a;
     }
 
     public double getAdvancedSkewRotation(AdvancedTarget raw)
     {
-        NetworkTableEntry tsRaw = table.getEntry("ts" + Integer.toString(raw.getValue()));
-        double s = tsRaw.getDouble(0.0);
+        double s = tsRawEntries[raw.getValue()].getDouble(0.0);
         return s;
     }
 
@@ -531,15 +727,13 @@ public class Limelight
 
     public double getAdvancedRawCrosshair_X(AdvancedCrosshair raw)
     {
-        NetworkTableEntry cxRaw = table.getEntry("cx" + Integer.toString(raw.getValue()));
-        double x = cxRaw.getDouble(0.0);
+        double x = cxRawEntries[raw.getValue()].getDouble(0.0);
         return x;
     }
 
     public double getAdvancedRawCrosshair_Y(AdvancedCrosshair raw)
     {
-        NetworkTableEntry cyRaw = table.getEntry("cy" + Integer.toString(raw.getValue()));
-        double y = cyRaw.getDouble(0.0);
+        double y = cyRawEntries[raw.getValue()].getDouble(0.0);
         return y;
     }
 
@@ -0,0 +1,221 @@
+package frc.robot.lib.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Writes DataLogController rows to a log file from a background thread, so that
+ * a slow disk (e.g. a USB stick at /media/sda1) never stalls the thread doing
+ * the logging.
+ *
+ * The logging thread (producer) claims a row from a preallocated ring buffer,
+ * copies its values into it, and publishes it.  This never blocks: if the ring
+ * is full, the row is dropped and counted.  A low priority writer thread
+ * (consumer) periodically passes all published rows to an Output, which
+ * formats them (CsvLogWriter or BinaryLogWriter), and flushes once per batch.
+ *
+ * Only one thread may produce rows for a given AsyncLogWriter.
+ */
+public class AsyncLogWriter
+{
+	public static final int kCapacity = 1024;				// rows (about 20 seconds at 50 Hz)
+	public static final long kWriterPeriodMs = 100;		// time between batches written to disk
+
+	/**
+	 * Formats rows into a file.  Only called from the writer thread.
+	 */
+	public interface Output
+	{
+		public void open(File _file) throws IOException;
+		public void write(Row _row) throws IOException;
+		public void flush() throws IOException;
+	}
+
+	/**
+	 * One row of the log: either a header (column names and types) or data
+	 * values.  Values are stored as primitives, and only formatted by the writer
+	 * thread.
+	 */
+	public static class Row
+	{
+		boolean isHeader;
+		long timeMillis;		// System.currentTimeMillis() when row was logged
+		double timestamp;		// Clock (FPGA) time in seconds when row was logged
+		int size = 0;
+		DataLogger.ChannelType[] types = new DataLogger.ChannelType[64];	// null for an empty column
+		double[] doubles = new double[64];
+		long[] longs = new long[64];
+		String[] strings = new String[64];
+
+		public void clear(boolean _isHeader, long _timeMillis, double _timestamp)
+		{
+			isHeader = _isHeader;
+			timeMillis = _timeMillis;
+			timestamp = _timestamp;
+			size = 0;
+		}
+
+		private int next()
+		{
+			if (size == types.length)
+			{
+				// only happens when new columns are logged
+				int newSize = 2 * types.length;
+				types = Arrays.copyOf(types, newSize);
+				doubles = Arrays.copyOf(doubles, newSize);
+				longs = Arrays.copyOf(longs, newSize);
+				strings = Arrays.copyOf(strings, newSize);
+			}
+			return size++;
+		}
+
+		public void addDouble(double _value)
+		{
+			int k = next();
+			types[k] = DataLogger.ChannelType.DOUBLE;
+			doubles[k] = _value;
+		}
+
+		public void addInt(long _value)
+		{
+			int k = next();
+			types[k] = DataLogger.ChannelType.INT;
+			longs[k] = _value;
+		}
+
+		public void addBoolean(boolean _value)
+		{
+			int k = next();
+			types[k] = DataLogger.ChannelType.BOOLEAN;
+			longs[k] = _value ? 1 : 0;
+		}
+
+		public void addString(String _value)
+		{
+			int k = next();
+			types[k] = DataLogger.ChannelType.STRING;
+			strings[k] = _value;
+		}
+
+		public void addEmpty()
+		{
+			types[next()] = null;
+		}
+
+		/** header rows only: add a column with its full name and type */
+		public void addColumn(String _name, DataLogger.ChannelType _type)
+		{
+			int k = next();
+			types[k] = _type;
+			strings[k] = _name;
+		}
+	}
+
+	private final Row[] rows = new Row[kCapacity];
+	private volatile long head = 0;		// next row to be claimed by producer
+	private volatile long tail = 0;		// next row to be written by consumer
+
+	// statistics
+	private volatile long rowsDropped = 0;
+	private volatile long rowsWritten = 0;
+	private volatile int highWaterMark = 0;
+
+	private final File file;
+	private final Output output;
+	private final Thread writerThread;
+
+	public AsyncLogWriter(File _file, Output _output)
+	{
+		file = _file;
+		output = _output;
+
+		for (int k = 0; k < kCapacity; k++)
+		{
+			rows[k] = new Row();
+		}
+
+		writerThread = new Thread(new CrashTrackingRunnable()
+		{
+			@Override
+			public void runCrashTracked()
+			{
+				writeLoop();
+			}
+		}, "AsyncLogWriter-" + _file.getName());
+		writerThread.setDaemon(true);
+		writerThread.setPriority(Thread.MIN_PRIORITY);
+		writerThread.start();
+	}
+
+	/**
+	 * Producer: get an empty row to fill in, or null if the buffer is full
+	 * (the row is then counted as dropped).  Call publish() when done filling it.
+	 */
+	public Row claim()
+	{
+		long h = head;
+		int queued = (int) (h - tail);
+		if (queued >= kCapacity)
+		{
+			rowsDropped++;
+			return null;
+		}
+		if (queued + 1 > highWaterMark)
+		{
+			highWaterMark = queued + 1;
+		}
+		return rows[(int) (h % kCapacity)];
+	}
+
+	/**
+	 * Producer: make the most recently claimed row visible to the writer thread
+	 */
+	public void publish()
+	{
+		head = head + 1;
+	}
+
+	public long getRowsDropped() { return rowsDropped; }
+	public long getRowsWritten() { return rowsWritten; }
+	public int getHighWaterMark() { return highWaterMark; }
+	public int getQueueLength() { return (int) (head - tail); }
+
+	// consumer thread
+	private void writeLoop()
+	{
+		try
+		{
+			output.open(file);
+
+			while (true)
+			{
+				long h = head;
+				if (tail < h)
+				{
+					while (tail < h)
+					{
+						output.write(rows[(int) (tail % kCapacity)]);
+						tail = tail + 1;		// release row back to producer
+						rowsWritten++;
+					}
+					output.flush();			// one flush per batch
+				}
+
+				try
+				{
+					Thread.sleep(kWriterPeriodMs);
+				}
+				catch (InterruptedException e)
+				{
+					break;
+				}
+			}
+			output.flush();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package frc.robot.lib.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Command line tool to convert a binary log from the robot to the CSV layout
+ * written by CsvLogWriter, optionally keeping only some of the columns.
+ *
+ *     ./gradlew convertLog -Pargs="20190301-101500_robot.bin"
+ *     ./gradlew convertLog -Pargs="20190301-101500_robot.bin out.csv --columns positionX,positionY,headingDeg"
+ *
+ * Columns can be given by full name (RobotState/positionX) or by the name
+ * shown in the CSV header (positionX).
+ */
+public class BinaryLogConverter
+{
+	public static void main(String[] args) throws IOException
+	{
+		String inName = null;
+		String outName = null;
+		String[] columns = null;
+
+		for (int k = 0; k < args.length; k++)
+		{
+			if (args[k].equals("--columns") && (k + 1 < args.length))
+				columns = args[++k].split(",");
+			else if (inName == null)
+				inName = args[k];
+			else if (outName == null)
+				outName = args[k];
+			else
+				usage();
+		}
+		if (inName == null)
+			usage();
+
+		if (outName == null)
+			outName = inName.replaceFirst("\\.bin$", "") + ".csv";
+
+		long rows = convert(new File(inName), new File(outName), columns);
+		System.out.println("Wrote " + rows + " rows to " + outName);
+	}
+
+	private static void usage()
+	{
+		System.err.println("usage: BinaryLogConverter <log.bin> [out.csv] [--columns name1,name2,...]");
+		System.exit(1);
+	}
+
+	/**
+	 * Convert a binary log to CSV.  If _columns is null, all columns are
+	 * written.  Returns the number of data rows written.
+	 */
+	public static long convert(File _in, File _out, String[] _columns) throws IOException
+	{
+		BinaryLogReader reader = new BinaryLogReader(_in);
+		SimpleDateFormat format = new SimpleDateFormat("MM-dd-yyyy HH:mm:ss.SS");
+		Date date = new Date();
+		int[] selected = new int[0];
+		long rows = 0;
+
+		try (PrintStream ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(_out))))
+		{
+			while (reader.next())
+			{
+				if (reader.schemaChanged())
+				{
+					selected = selectColumns(reader, _columns);
+
+					ps.print("time,timeSinceStart");
+					for (int k = 0; k < selected.length; k++)
+					{
+						String name = (selected[k] >= 0) ? reader.getColumnName(selected[k]) : _columns[k];
+						ps.print(',');
+						ps.print(name.substring(name.lastIndexOf('/') + 1));
+					}
+					ps.println();
+				}
+
+				long timeMillis = reader.getTimeMillis();
+				date.setTime(timeMillis);
+				ps.print(format.format(date));
+				ps.print(',');
+				ps.print(timeMillis - reader.getStartTimeMillis());
+				for (int k = 0; k < selected.length; k++)
+				{
+					ps.print(',');
+					if (selected[k] >= 0)
+						ps.print(reader.format(selected[k]));
+				}
+				ps.println();
+				rows++;
+			}
+		}
+		return rows;
+	}
+
+	// column index for each output column (-1 if not in the log)
+	private static int[] selectColumns(BinaryLogReader _reader, String[] _columns)
+	{
+		if (_columns == null)
+		{
+			int[] all = new int[_reader.getNumColumns()];
+			for (int k = 0; k < all.length; k++)
+				all[k] = k;
+			return all;
+		}
+
+		int[] selected = new int[_columns.length];
+		for (int k = 0; k < _columns.length; k++)
+			selected[k] = _reader.findColumn(_columns[k].trim());
+		return selected;
+	}
+}
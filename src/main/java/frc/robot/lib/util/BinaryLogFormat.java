@@ -0,0 +1,84 @@
+package frc.robot.lib.util;
+
+/**
+ * Layout of the binary log files written by BinaryLogWriter and read by
+ * BinaryLogReader.  All values are little-endian.
+ *
+ * File header:
+ *     int    kMagic
+ *     short  kVersion
+ *     long   wall clock time at start of log (ms since 1970)
+ *     double Clock (FPGA) time at start of log (seconds)
+ *
+ * followed by records, each starting with a one byte tag:
+ *
+ * kSchemaTag: columns of the following data records (written again whenever
+ * a logger adds or widens a channel)
+ *     int    number of columns
+ *     per column: byte type (DataLogger.ChannelType ordinal), short name length, UTF-8 name
+ *
+ * kStringTag: defines a string value used by STRING columns
+ *     int    string id
+ *     short  length, UTF-8 bytes
+ *
+ * kDataTag: one row of values, fixed width for a given schema
+ *     double Clock (FPGA) time (seconds)
+ *     int    wall clock time, ms since the header's wall clock time
+ *     bitmap of columns written this row, (numColumns+7)/8 bytes, bit k%8 of byte k/8
+ *     per column: DOUBLE 8 bytes, INT 4 bytes, BOOLEAN 1 byte, STRING 4 byte string id
+ */
+public class BinaryLogFormat
+{
+	public static final int kMagic = 0x4C435246;		// "FRCL"
+	public static final short kVersion = 1;
+	public static final int kFileHeaderSize = 4 + 2 + 8 + 8;
+
+	public static final byte kSchemaTag = 1;
+	public static final byte kStringTag = 2;
+	public static final byte kDataTag = 3;
+
+	private static final DataLogger.ChannelType[] kTypes = DataLogger.ChannelType.values();
+
+	public static int getWidth(DataLogger.ChannelType _type)
+	{
+		switch (_type)
+		{
+		case DOUBLE:
+			return 8;
+		case INT:
+			return 4;
+		case BOOLEAN:
+			return 1;
+		case STRING:
+			return 4;
+		default:
+			throw new IllegalArgumentException("Unknown channel type " + _type);
+		}
+	}
+
+	public static DataLogger.ChannelType getType(byte _code)
+	{
+		return kTypes[_code];
+	}
+
+	public static byte getCode(DataLogger.ChannelType _type)
+	{
+		return (byte) _type.ordinal();
+	}
+
+	/** size of a data record (including tag) for the given column types */
+	public static int getDataRecordSize(DataLogger.ChannelType[] _types, int _numColumns)
+	{
+		int size = 1 + 8 + 4 + getBitmapSize(_numColumns);
+		for (int k = 0; k < _numColumns; k++)
+		{
+			size += getWidth(_types[k]);
+		}
+		return size;
+	}
+
+	public static int getBitmapSize(int _numColumns)
+	{
+		return (_numColumns + 7) / 8;
+	}
+}
@@ -0,0 +1,207 @@
+package frc.robot.lib.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a binary log written by BinaryLogWriter, one data record at a time.
+ * Does not depend on WPILib, so it can be run on a workstation.
+ *
+ *     BinaryLogReader reader = new BinaryLogReader(file);
+ *     while (reader.next())
+ *     {
+ *         if (reader.schemaChanged()) ...
+ *         double x = reader.getDouble(k);
+ *     }
+ */
+public class BinaryLogReader
+{
+	private final ByteBuffer buffer;
+	private final long startTimeMillis;
+	private final double startTimestamp;
+
+	private final List<String> names = new ArrayList<String>();
+	private final List<DataLogger.ChannelType> types = new ArrayList<DataLogger.ChannelType>();
+	private int[] offsets = new int[0];		// offset of each column from start of record values
+	private final List<String> strings = new ArrayList<String>();
+	private boolean schemaChanged = false;
+
+	// current data record
+	private double timestamp;
+	private long timeMillis;
+	private int bitmapPosition;
+	private int valuesPosition;
+
+	public BinaryLogReader(File _file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(_file.toPath(), StandardOpenOption.READ))
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.remaining() < BinaryLogFormat.kFileHeaderSize || buffer.getInt() != BinaryLogFormat.kMagic)
+			throw new IOException(_file + " is not a binary log file");
+		short version = buffer.getShort();
+		if (version != BinaryLogFormat.kVersion)
+			throw new IOException(_file + " has unsupported version " + version);
+
+		startTimeMillis = buffer.getLong();
+		startTimestamp = buffer.getDouble();
+	}
+
+	/**
+	 * Advance to the next data record, reading any schema and string records
+	 * before it.  Returns false at the end of the file (or at a record that
+	 * was not completely written).
+	 */
+	public boolean next()
+	{
+		schemaChanged = false;
+		try
+		{
+			while (buffer.hasRemaining())
+			{
+				byte tag = buffer.get();
+				switch (tag)
+				{
+				case BinaryLogFormat.kSchemaTag:
+					readSchema();
+					break;
+				case BinaryLogFormat.kStringTag:
+					readString();
+					break;
+				case BinaryLogFormat.kDataTag:
+					timestamp = buffer.getDouble();
+					timeMillis = startTimeMillis + buffer.getInt();
+					bitmapPosition = buffer.position();
+					valuesPosition = bitmapPosition + BinaryLogFormat.getBitmapSize(names.size());
+					int end = valuesPosition + (names.isEmpty() ? 0 : offsets[names.size()]);
+					if (end > buffer.limit())
+						return false;
+					buffer.position(end);
+					return true;
+				default:
+					throw new IllegalStateException("Corrupt log: unknown record type " + tag + " at " + (buffer.position() - 1));
+				}
+			}
+		}
+		catch (java.nio.BufferUnderflowException e)
+		{
+			// truncated record at end of file (robot was turned off while logging)
+		}
+		return false;
+	}
+
+	private void readSchema()
+	{
+		int numColumns = buffer.getInt();
+		names.clear();
+		types.clear();
+		offsets = new int[numColumns + 1];
+		for (int k = 0; k < numColumns; k++)
+		{
+			DataLogger.ChannelType type = BinaryLogFormat.getType(buffer.get());
+			names.add(readUtf8(buffer.getShort()));
+			types.add(type);
+			offsets[k + 1] = offsets[k] + BinaryLogFormat.getWidth(type);
+		}
+		schemaChanged = true;
+	}
+
+	private void readString()
+	{
+		int id = buffer.getInt();
+		String value = readUtf8(buffer.getShort());
+		while (strings.size() <= id)
+			strings.add("");
+		strings.set(id, value);
+	}
+
+	private String readUtf8(short _length)
+	{
+		byte[] bytes = new byte[_length & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	public long getStartTimeMillis() { return startTimeMillis; }
+	public double getStartTimestamp() { return startTimestamp; }
+
+	/** true if the columns changed before the current record */
+	public boolean schemaChanged() { return schemaChanged; }
+
+	public int getNumColumns() { return names.size(); }
+	public String getColumnName(int _column) { return names.get(_column); }
+	public DataLogger.ChannelType getColumnType(int _column) { return types.get(_column); }
+
+	public int findColumn(String _name)
+	{
+		for (int k = 0; k < names.size(); k++)
+		{
+			String name = names.get(k);
+			if (name.equals(_name) || name.substring(name.lastIndexOf('/') + 1).equals(_name))
+				return k;
+		}
+		return -1;
+	}
+
+	/** Clock (FPGA) time of the current record, in seconds */
+	public double getTimestamp() { return timestamp; }
+
+	/** wall clock time of the current record (ms since 1970), as logged */
+	public long getTimeMillis() { return timeMillis; }
+
+	/** true if the column was written in the current record */
+	public boolean isPresent(int _column)
+	{
+		return (buffer.get(bitmapPosition + _column / 8) & (1 << (_column % 8))) != 0;
+	}
+
+	public double getDouble(int _column)
+	{
+		return buffer.getDouble(valuesPosition + offsets[_column]);
+	}
+
+	public int getInt(int _column)
+	{
+		return buffer.getInt(valuesPosition + offsets[_column]);
+	}
+
+	public boolean getBoolean(int _column)
+	{
+		return buffer.get(valuesPosition + offsets[_column]) != 0;
+	}
+
+	public String getString(int _column)
+	{
+		int id = buffer.getInt(valuesPosition + offsets[_column]);
+		return (id < strings.size()) ? strings.get(id) : "";
+	}
+
+	/** value of the column formatted as in the CSV logs, or "" if not written */
+	public String format(int _column)
+	{
+		if (!isPresent(_column))
+			return "";
+
+		switch (types.get(_column))
+		{
+		case DOUBLE:
+			return Double.toString(getDouble(_column));
+		case INT:
+			return Integer.toString(getInt(_column));
+		case BOOLEAN:
+			return Boolean.toString(getBoolean(_column));
+		default:
+			return getString(_column);
+		}
+	}
+}
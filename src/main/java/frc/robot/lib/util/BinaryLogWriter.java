@@ -0,0 +1,178 @@
+package frc.robot.lib.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes log rows in the binary format described in BinaryLogFormat, through
+ * a FileChannel.  Numbers are copied as fixed-width little-endian values
+ * rather than formatted as text, and strings are written once and then
+ * referred to by id.
+ *
+ * Convert to CSV on a workstation with BinaryLogConverter.
+ */
+public class BinaryLogWriter implements AsyncLogWriter.Output
+{
+	public static final int kBufferSize = 64 * 1024;
+
+	private final long startTimeMillis;
+	private final double startTimestamp;
+	private FileChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(kBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+
+	// current schema
+	private int numColumns = 0;
+	private DataLogger.ChannelType[] types = new DataLogger.ChannelType[64];
+	private int recordSize = BinaryLogFormat.getDataRecordSize(types, 0);
+
+	private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+	public BinaryLogWriter(long _startTimeMillis, double _startTimestamp)
+	{
+		startTimeMillis = _startTimeMillis;
+		startTimestamp = _startTimestamp;
+	}
+
+	@Override
+	public void open(File _file) throws IOException
+	{
+		channel = FileChannel.open(_file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		buffer.putInt(BinaryLogFormat.kMagic);
+		buffer.putShort(BinaryLogFormat.kVersion);
+		buffer.putLong(startTimeMillis);
+		buffer.putDouble(startTimestamp);
+	}
+
+	@Override
+	public void write(AsyncLogWriter.Row _row) throws IOException
+	{
+		if (_row.isHeader)
+			writeSchema(_row);
+		else
+			writeData(_row);
+	}
+
+	private void writeSchema(AsyncLogWriter.Row _row) throws IOException
+	{
+		numColumns = _row.size;
+		if (types.length < numColumns)
+			types = Arrays.copyOf(_row.types, numColumns);
+		else
+			System.arraycopy(_row.types, 0, types, 0, numColumns);
+		recordSize = BinaryLogFormat.getDataRecordSize(types, numColumns);
+
+		reserve(1 + 4);
+		buffer.put(BinaryLogFormat.kSchemaTag);
+		buffer.putInt(numColumns);
+		for (int k = 0; k < numColumns; k++)
+		{
+			byte[] name = _row.strings[k].getBytes(StandardCharsets.UTF_8);
+			reserve(1 + 2 + name.length);
+			buffer.put(BinaryLogFormat.getCode(types[k]));
+			buffer.putShort((short) name.length);
+			buffer.put(name);
+		}
+	}
+
+	private void writeData(AsyncLogWriter.Row _row) throws IOException
+	{
+		int n = Math.min(numColumns, _row.size);		// columns beyond the schema are not logged
+
+		// define any strings not seen before
+		for (int k = 0; k < n; k++)
+		{
+			if (types[k] == DataLogger.ChannelType.STRING && _row.types[k] != null)
+				getStringId(_row.strings[k]);
+		}
+
+		reserve(recordSize);
+		buffer.put(BinaryLogFormat.kDataTag);
+		buffer.putDouble(_row.timestamp);
+		buffer.putInt((int) (_row.timeMillis - startTimeMillis));	// stored, not derived from timestamp, so CSV conversion gives the same times
+
+		int bitmapSize = BinaryLogFormat.getBitmapSize(numColumns);
+		for (int b = 0; b < bitmapSize; b++)
+		{
+			int bits = 0;
+			for (int k = 8 * b; k < Math.min(8 * b + 8, n); k++)
+			{
+				if (_row.types[k] != null)
+					bits |= (1 << (k % 8));
+			}
+			buffer.put((byte) bits);
+		}
+
+		for (int k = 0; k < numColumns; k++)
+		{
+			boolean present = (k < n) && (_row.types[k] != null);
+			switch (types[k])
+			{
+			case DOUBLE:
+				buffer.putDouble(present ? _row.doubles[k] : 0.0);
+				break;
+			case INT:
+				buffer.putInt(present ? (int) _row.longs[k] : 0);
+				break;
+			case BOOLEAN:
+				buffer.put(present ? (byte) _row.longs[k] : 0);
+				break;
+			case STRING:
+				buffer.putInt(present ? getStringId(_row.strings[k]) : 0);
+				break;
+			}
+		}
+	}
+
+	// returns id of string, writing a string record the first time it is seen
+	private int getStringId(String _value) throws IOException
+	{
+		if (_value == null)
+			_value = "";
+
+		Integer id = stringIds.get(_value);
+		if (id != null)
+			return id;
+
+		int newId = stringIds.size();
+		stringIds.put(_value, newId);
+
+		byte[] bytes = _value.getBytes(StandardCharsets.UTF_8);
+		reserve(1 + 4 + 2 + bytes.length);
+		buffer.put(BinaryLogFormat.kStringTag);
+		buffer.putInt(newId);
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+		return newId;
+	}
+
+	// make sure there is room in the buffer for _size more bytes
+	private void reserve(int _size) throws IOException
+	{
+		if (buffer.remaining() >= _size)
+			return;
+
+		flush();
+		if (buffer.capacity() < _size)
+			buffer = ByteBuffer.allocateDirect(_size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,37 @@
+package frc.robot.lib.util;
+
+/**
+ * Source of time for the robot code.
+ * 
+ * On the robot, the default FPGAClock reads the FPGA timestamp and sleeps in
+ * real time.  Off the robot, a SimulatedClock can be installed with
+ * setInstance() so that the loops and autonomous modes run headless and
+ * deterministically, as fast as the CPU allows.
+ * 
+ * Code in lib.util, vision, loops, and auto should get the time with
+ * Clock.getInstance().getTime() rather than reading Timer directly.
+ */
+public abstract class Clock
+{
+	private static Clock instance = new FPGAClock();
+	public static Clock getInstance() { return instance; }
+	public static void setInstance(Clock _clock) { instance = _clock; }
+
+	/**
+	 * A task that is run periodically (replaces a WPILib Notifier)
+	 */
+	public interface PeriodicTask
+	{
+		public void startPeriodic(double _period);
+		public void stop();
+	}
+
+	/** current time in seconds */
+	public abstract double getTime();
+
+	/** block the calling thread for _seconds */
+	public abstract void sleep(double _seconds) throws InterruptedException;
+
+	/** create a task that runs _task every period once started */
+	public abstract PeriodicTask createPeriodicTask(Runnable _task);
+}
@@ -0,0 +1,88 @@
+package frc.robot.lib.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Writes log rows as CSV text: a header line of column names (without the
+ * SmartDashboard folder hierarchy), then one line per row starting with the
+ * date and the milliseconds since the log was started.
+ */
+public class CsvLogWriter implements AsyncLogWriter.Output
+{
+	public static final int kFileBufferSize = 64 * 1024;
+
+	private final long startTime;
+	private PrintStream ps;
+	private final SimpleDateFormat format = new SimpleDateFormat("MM-dd-yyyy HH:mm:ss.SS");
+	private final Date date = new Date();
+
+	public CsvLogWriter(long _startTime)
+	{
+		startTime = _startTime;
+	}
+
+	@Override
+	public void open(File _file) throws IOException
+	{
+		ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(_file), kFileBufferSize));
+	}
+
+	@Override
+	public void write(AsyncLogWriter.Row _row)
+	{
+		if (_row.isHeader)
+		{
+			ps.print("time,timeSinceStart");
+			for (int k = 0; k < _row.size; k++)
+			{
+				// remove SmartDashboard folder hierarchy
+				String name = _row.strings[k];
+				ps.print(',');
+				ps.print(name.substring(name.lastIndexOf('/') + 1));
+			}
+			ps.println();
+			return;
+		}
+
+		date.setTime(_row.timeMillis);
+		ps.print(format.format(date));
+		ps.print(',');
+		ps.print(_row.timeMillis - startTime);
+
+		for (int k = 0; k < _row.size; k++)
+		{
+			ps.print(',');
+			if (_row.types[k] == null)
+				continue;
+			switch (_row.types[k])
+			{
+			case DOUBLE:
+				ps.print(_row.doubles[k]);
+				break;
+			case INT:
+				ps.print(_row.longs[k]);
+				break;
+			case BOOLEAN:
+				ps.print(_row.longs[k] != 0);
+				break;
+			case STRING:
+				if (_row.strings[k] != null)
+					ps.print(_row.strings[k]);
+				break;
+			}
+		}
+		ps.println();
+	}
+
+	@Override
+	public void flush()
+	{
+		ps.flush();
+	}
+}
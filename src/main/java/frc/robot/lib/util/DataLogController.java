@@ -1,16 +1,11 @@
 package frc.robot.lib.util;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.PrintStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
-
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 //Adapted from FRC Team 3620, The Average Joes
 //https://github.com/FRC3620/FRC3620_2015_AverageJava/blob/master/FRC3620_2015_AverageJava/src/org/usfirst/frc3620/DataLogger.java
@@ -104,17 +99,33 @@ public class DataLogController
 		sdOutput = _sd;
 	}
 
+	// BINARY logs are much smaller and cheaper to write; convert them with BinaryLogConverter
+	public enum FileFormat { CSV, BINARY }
+	public FileFormat fileFormat = FileFormat.BINARY;
+
+	// takes effect when the next log file is opened
+	public void setFileFormat(FileFormat _format)
+	{
+		fileFormat = _format;
+	}
+
 	private final List<DataLogger> loggers = new ArrayList<>();
+	private final List<int[]> publisherKeys = new ArrayList<>();	// SmartDashboardPublisher key for each logger channel
+
+	// only writes changed SmartDashboard values
+	private final SmartDashboardPublisher publisher = new SmartDashboardPublisher();
 
 	public void register(DataLogger logger)
 	{
 		loggers.add(logger);
+		publisherKeys.add(new int[0]);
 	}
 
 	public void deregister()
 	{
 		clearLogs();
 		loggers.clear();
+		publisherKeys.clear();
 		writeHeader = true; // write a new header to indicate start of new
 							// action (autonomous mode only)
 	}
@@ -128,17 +139,18 @@ public class DataLogController
 		saveDataItems(); // write to file / SmartDashboard
 	}
 
-	PrintStream ps;
+	AsyncLogWriter writer;		// formats and writes rows to disk in a background thread
 	long startTime;
 	long timeUpdated;
 	long timeSinceLog;
 	boolean writeHeader = true;
+	int schemaVersionInHeader = 0;
 
 	private boolean shouldLogData()
 	{
 		boolean retVal = false;
 
-		if (ps == null)
+		if (writer == null)
 			retVal = true;
 
 		long now = System.currentTimeMillis();
@@ -152,47 +164,52 @@ public class DataLogController
 	{
 		if (shouldLogData())
 		{
-			try
+			if (fileOutput && (writer == null))
+			{
+				// file stream has not yet been initialized
+				String timestampString = getTimestampString();
+				if (timestampString != null)
+				{
+					String extension = (fileFormat == FileFormat.BINARY) ? ".bin" : ".csv";
+					String filename = timestampString + "_" + fileBase + extension;
+					System.out.println("Opening log file: " + filename);
+					File logFile = new File(parentDirectory, filename);
+					startTime = System.currentTimeMillis();
+					AsyncLogWriter.Output output;
+					if (fileFormat == FileFormat.BINARY)
+						output = new BinaryLogWriter(startTime, Clock.getInstance().getTime());
+					else
+						output = new CsvLogWriter(startTime);
+					writer = new AsyncLogWriter(logFile, output);
+				}
+			} else
 			{
-				if (fileOutput && (ps == null))
+				if (fileOutput)
 				{
-					// file stream has not yet been initialized
-					String timestampString = getTimestampString();
-					if (timestampString != null)
+					long now = System.currentTimeMillis();
+					double timestamp = Clock.getInstance().getTime();
+					int schemaVersion = getSchemaVersion();
+					if (schemaVersion != schemaVersionInHeader)
 					{
-						String filename = timestampString + "_" + fileBase + ".csv";
-						System.out.println("Opening log file: " + filename);
-						File logFile = new File(parentDirectory, filename);
-						ps = new PrintStream(new FileOutputStream(logFile));
-						startTime = System.currentTimeMillis();
+						writeHeader = true;		// a logger added or widened a channel, so columns have changed
 					}
-				} else
-				{
-					if (fileOutput)
+					if (writeHeader)
 					{
-						if (writeHeader)
-						{
-							ps.print("time,timeSinceStart");
-							writeNames();
-							writeHeader = false;
-						}
-
-						timeUpdated = (System.currentTimeMillis() - startTime);
-						ps.print(getDate());
-						ps.print(',');
-						ps.print(timeUpdated);
-						writeValues();
-						ps.flush();
-						timeSinceLog = System.currentTimeMillis();
+						writeHeader = !writeNames(now, timestamp);	// try again next time if row was dropped
+						schemaVersionInHeader = schemaVersion;
 					}
-					if (sdOutput)
+
+					timeUpdated = (now - startTime);
+					if (!writeHeader)
 					{
-						putValues();
+						writeValues(now, timestamp);	// values can't be written until columns are known
 					}
+					timeSinceLog = now;
+				}
+				if (sdOutput)
+				{
+					putValues();
 				}
-			} catch (IOException e)
-			{
-				e.printStackTrace();
 			}
 		}
 
@@ -216,110 +233,180 @@ public class DataLogController
 	}
 	
 	
-	private void writeNames()
+	// copy column names and types into the writer's buffer, returns false if the row was dropped
+	private boolean writeNames(long _now, double _timestamp)
 	{
+		AsyncLogWriter.Row row = writer.claim();
+		if (row == null)
+			return false;
+
+		row.clear(true, _now, _timestamp);
 		for (DataLogger logger : loggers)
 		{
 			synchronized (logger)
 			{
-				for (String name : logger.logMap.keySet())
+				for (int ch = 0; ch < logger.numChannels; ch++)
 				{
-					// remove SmartDashboard folder hierarchy
-				    int index = name.lastIndexOf('/');
-			    	name = name.substring(index+1);				
-					
-					ps.print(',');
-					ps.print(name);
+					row.addColumn(logger.names[ch], logger.types[ch]);
 				}
 			}
 		}
-		ps.println();
+		writer.publish();
+		return true;
 	}
 
-	private void writeValues()
+	// copy values into the writer's buffer (formatting is done by the writer thread)
+	private void writeValues(long _now, double _timestamp)
 	{
+		AsyncLogWriter.Row row = writer.claim();
+		if (row == null)
+			return;		// buffer full, counted in writer.getRowsDropped()
+
+		row.clear(false, _now, _timestamp);
 		for (DataLogger logger : loggers)
 		{
 			synchronized (logger)
 			{
-				for (Object value : logger.logMap.values())
+				for (int ch = 0; ch < logger.numChannels; ch++)
 				{
-					ps.print(',');
-					ps.print(value.toString());
+					if (!logger.updated[ch])
+					{
+						row.addEmpty();
+						continue;
+					}
+					switch (logger.types[ch])
+					{
+					case DOUBLE:
+						row.addDouble(logger.doubles[ch]);
+						break;
+					case INT:
+						row.addInt(logger.longs[ch]);
+						break;
+					case BOOLEAN:
+						row.addBoolean(logger.longs[ch] != 0);
+						break;
+					case STRING:
+						row.addString(logger.strings[ch]);
+						break;
+					}
 				}
 			}
 		}
-		ps.println();
+		writer.publish();
 	}
 
-	private void putValues()
+	// changes when a logger adds or widens a channel
+	private int getSchemaVersion()
 	{
+		int schemaVersion = 0;
 		for (DataLogger logger : loggers)
 		{
+			schemaVersion += logger.getSchemaVersion();
+		}
+		return schemaVersion;
+	}
+
+	private void putValues()
+	{
+		for (int k = 0; k < loggers.size(); k++)
+		{
+			DataLogger logger = loggers.get(k);
 			synchronized (logger)
 			{
-				for (Map.Entry<String, Object> entry : logger.logMap.entrySet())
+				int[] keys = getPublisherKeys(k, logger);
+				for (int ch = 0; ch < logger.numChannels; ch++)
 				{
-					String key = entry.getKey();
-					Object value = entry.getValue();
-
-					if (value.getClass().equals(Boolean.class))
-						putValue(key, (Boolean) value);
-					else if (value.getClass().equals(Integer.class))
-						putValue(key, (Integer) value);
-					else if (value.getClass().equals(Double.class))
-						putValue(key, (Double) value);
-					else if (value.getClass().equals(Float.class))
-						putValue(key, (Double) value);
-					else if (value.getClass().equals(String.class))
-						putValue(key, (String) value);
-					else
-						putValue(key, "ERROR");
+					if (!logger.updated[ch])
+						continue;
+
+					switch (logger.types[ch])
+					{
+					case DOUBLE:
+						publisher.update(keys[ch], logger.doubles[ch]);
+						break;
+					case INT:
+						publisher.update(keys[ch], logger.longs[ch]);
+						break;
+					case BOOLEAN:
+						publisher.update(keys[ch], logger.longs[ch] != 0);
+						break;
+					case STRING:
+						publisher.update(keys[ch], logger.strings[ch]);
+						break;
+					}
 				}
 			}
 		}
+		publisher.flush(Clock.getInstance().getTime());	// write all changes at once
 	}
 
-	private void putValue(String key, boolean val)
+	// get publisher keys for the _k'th logger, adding keys for any new channels
+	private int[] getPublisherKeys(int _k, DataLogger _logger)
 	{
-		SmartDashboard.putBoolean(key, val);
-	}
-
-	private void putValue(String key, int val)
-	{
-		SmartDashboard.putNumber(key, val);
-	}
-
-	private void putValue(String key, double val)
-	{
-		SmartDashboard.putNumber(key, val);
+		int[] keys = publisherKeys.get(_k);
+		if (keys.length < _logger.numChannels)
+		{
+			int oldLength = keys.length;
+			keys = Arrays.copyOf(keys, _logger.numChannels);
+			for (int ch = oldLength; ch < keys.length; ch++)
+			{
+				keys[ch] = publisher.addKey(_logger.names[ch], _logger.types[ch]);
+			}
+			publisherKeys.set(_k, keys);
+		}
+		return keys;
 	}
 
-	private void putValue(String key, String val)
+	public SmartDashboardPublisher getSmartDashboardPublisher()
 	{
-		SmartDashboard.putString(key, val);
+		return publisher;
 	}
 
 	private void clearLogs()
 	{
 		for (DataLogger logger : loggers)
 		{
-			logger.logMap.clear();
+			logger.clear();
 		}
 	}
 
-	private String getDate()
+	public static void setMinimumInterval(long _minimumInterval)
 	{
-		Date curDate = new Date();
-		String DateToStr = format.format(curDate);
-		return DateToStr;
+		minimumInterval = _minimumInterval;
 	}
 
-	SimpleDateFormat format = new SimpleDateFormat("MM-dd-yyyy HH:mm:ss.SS");
+	public long getRowsDropped() { return (writer == null) ? 0 : writer.getRowsDropped(); }
+	public long getRowsWritten() { return (writer == null) ? 0 : writer.getRowsWritten(); }
+	public int getHighWaterMark() { return (writer == null) ? 0 : writer.getHighWaterMark(); }
 
-	public static void setMinimumInterval(long _minimumInterval)
+	private final DataLogger logger = new DataLogger()
 	{
-		minimumInterval = _minimumInterval;
+		// channels are added on first use, once fileBase is known
+		int rowsWrittenChannel = -1, rowsDroppedChannel, highWaterMarkChannel, sdSentChannel, sdSuppressedChannel;
+
+		@Override
+		public void log()
+		{
+			if (rowsWrittenChannel < 0)
+			{
+				String prefix = "DataLog/" + fileBase;
+				rowsWrittenChannel   = addIntChannel(prefix + "/rowsWritten");
+				rowsDroppedChannel   = addIntChannel(prefix + "/rowsDropped");
+				highWaterMarkChannel = addIntChannel(prefix + "/highWaterMark");
+				sdSentChannel        = addIntChannel(prefix + "/sdSent");
+				sdSuppressedChannel  = addIntChannel(prefix + "/sdSuppressed");
+			}
+			set(rowsWrittenChannel,   (int) getRowsWritten());
+			set(rowsDroppedChannel,   (int) getRowsDropped());
+			set(highWaterMarkChannel, getHighWaterMark());
+			set(sdSentChannel,        (int) publisher.getSent());
+			set(sdSuppressedChannel,  (int) publisher.getSuppressed());
+		}
+	};
+
+	public DataLogger getLogger()
+	{
+		return logger;
 	}
 
 }
@@ -4,36 +4,192 @@ package frc.robot.lib.util;
 import java.util.*;
 
 
-
-public abstract class DataLogger 
+/**
+ * Collects values to be logged by DataLogController.
+ *
+ * Values are written to typed channels.  A channel is registered once (usually
+ * in a field initializer) and returns an integer handle, which is then used to
+ * write primitives into preallocated arrays each cycle without boxing:
+ *
+ *     final int speedChannel = addDoubleChannel("Drive/speed");
+ *     ...
+ *     set(speedChannel, speed);
+ *
+ * The older put(String, value) calls still work: they look up (or register on
+ * first use) the channel with that name.
+ *
+ * An INT channel is widened to DOUBLE the first time a double is written to
+ * it (e.g. put(name, -999) in one cycle and put(name, 1.5) in another), and
+ * the log writers then start a new header.  Any other type mismatch, such as
+ * a String written to a numeric channel, throws IllegalArgumentException.
+ */
+public abstract class DataLogger
 {
-	public Map<String, Object> logMap = new LinkedHashMap<String, Object>();
+	public enum ChannelType { DOUBLE, INT, BOOLEAN, STRING }
+
+	// channel schema, indexed by channel handle (only grows)
+	int numChannels = 0;
+	int schemaVersion = 0;		// incremented when a channel is added or widened
+	String[] names = new String[16];
+	ChannelType[] types = new ChannelType[16];
+	private final Map<String, Integer> channelsByName = new HashMap<String, Integer>();
+
+	// values, indexed by channel handle
+	double[] doubles = new double[16];		// DOUBLE channels
+	long[] longs = new long[16];			// INT and BOOLEAN channels
+	String[] strings = new String[16];		// STRING channels
+	boolean[] updated = new boolean[16];	// true if written since last clear()
+
+	public abstract void log();
+
+	/**
+	 * Register a channel, returning its handle.  Registering an existing name
+	 * returns the existing handle, widening it from INT to DOUBLE if needed.
+	 */
+	public synchronized int addChannel(String name, ChannelType type)
+	{
+		Integer existing = channelsByName.get(name);
+		if (existing != null)
+		{
+			int channel = existing;
+			if (type == ChannelType.DOUBLE)
+				checkDouble(channel);
+			else if (type == ChannelType.INT)
+				checkInt(channel);
+			else if (types[channel] != type)
+				throw mismatch(channel, type);
+			return channel;
+		}
+
+		if (numChannels == names.length)
+			grow();
+
+		int channel = numChannels;
+		names[channel] = name;
+		types[channel] = type;
+		channelsByName.put(name, channel);
+		numChannels++;
+		schemaVersion++;
+		return channel;
+	}
+
+	public int addDoubleChannel(String name)  { return addChannel(name, ChannelType.DOUBLE); }
+	public int addIntChannel(String name)     { return addChannel(name, ChannelType.INT); }
+	public int addBooleanChannel(String name) { return addChannel(name, ChannelType.BOOLEAN); }
+	public int addStringChannel(String name)  { return addChannel(name, ChannelType.STRING); }
+
+	private void grow()
+	{
+		int size = 2 * names.length;
+		names = Arrays.copyOf(names, size);
+		types = Arrays.copyOf(types, size);
+		doubles = Arrays.copyOf(doubles, size);
+		longs = Arrays.copyOf(longs, size);
+		strings = Arrays.copyOf(strings, size);
+		updated = Arrays.copyOf(updated, size);
+	}
+
+	// a double can be written to a DOUBLE channel, or an INT channel after widening it
+	private void checkDouble(int channel)
+	{
+		if (types[channel] == ChannelType.INT)
+		{
+			types[channel] = ChannelType.DOUBLE;
+			doubles[channel] = longs[channel];
+			schemaVersion++;
+		}
+		else if (types[channel] != ChannelType.DOUBLE)
+			throw mismatch(channel, ChannelType.DOUBLE);
+	}
+
+	// an int can be written to an INT or DOUBLE channel
+	private void checkInt(int channel)
+	{
+		if (types[channel] != ChannelType.INT && types[channel] != ChannelType.DOUBLE)
+			throw mismatch(channel, ChannelType.INT);
+	}
+
+	private IllegalArgumentException mismatch(int channel, ChannelType type)
+	{
+		return new IllegalArgumentException("Log channel " + names[channel] + " is " + types[channel] + ", can't write " + type);
+	}
+
+	public synchronized void set(int channel, double value)
+	{
+		checkDouble(channel);
+		doubles[channel] = value;
+		updated[channel] = true;
+	}
+
+	public synchronized void set(int channel, int value)
+	{
+		set(channel, (long) value);
+	}
+
+	public synchronized void set(int channel, long value)
+	{
+		checkInt(channel);
+		if (types[channel] == ChannelType.DOUBLE)
+			doubles[channel] = value;
+		else
+			longs[channel] = value;
+		updated[channel] = true;
+	}
+
+	public synchronized void set(int channel, boolean value)
+	{
+		if (types[channel] != ChannelType.BOOLEAN)
+			throw mismatch(channel, ChannelType.BOOLEAN);
+		longs[channel] = value ? 1 : 0;
+		updated[channel] = true;
+	}
+
+	public synchronized void set(int channel, String value)
+	{
+		if (types[channel] != ChannelType.STRING)
+			throw mismatch(channel, ChannelType.STRING);
+		strings[channel] = value;
+		updated[channel] = true;
+	}
+
+	/**
+	 * Mark all channels as not yet written this cycle
+	 */
+	public synchronized void clear()
+	{
+		Arrays.fill(updated, 0, numChannels, false);
+	}
+
+	public synchronized int getNumChannels() { return numChannels; }
+	public synchronized int getSchemaVersion() { return schemaVersion; }
+	public synchronized String getChannelName(int channel) { return names[channel]; }
+	public synchronized ChannelType getChannelType(int channel) { return types[channel]; }
+
+	// compatibility layer: look up channel by name
 
-	public abstract void log();	
-	
 	public synchronized void put(String name, boolean value)
 	{
-		logMap.put(name, Boolean.valueOf(value));
+		set(addChannel(name, ChannelType.BOOLEAN), value);
 	}
-	
+
 	public synchronized void put(String name, double value)
 	{
-		logMap.put(name, Double.valueOf(value));
+		set(addChannel(name, ChannelType.DOUBLE), value);
 	}
-	
+
 	public synchronized void put(String name, float value)
 	{
-		logMap.put(name, Double.valueOf((double)value));
+		set(addChannel(name, ChannelType.DOUBLE), (double)value);
 	}
-	
+
 	public synchronized void put(String name, int value)
 	{
-		logMap.put(name, Integer.valueOf(value));
+		set(addChannel(name, ChannelType.INT), value);
 	}
-	
+
 	public synchronized void put(String name, String value)
 	{
-		logMap.put(name, value);
+		set(addChannel(name, ChannelType.STRING), value);
 	}
-	
+
 }
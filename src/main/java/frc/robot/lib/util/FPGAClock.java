@@ -0,0 +1,42 @@
+package frc.robot.lib.util;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Clock backed by the roboRIO's FPGA timestamp, with periodic tasks run by
+ * WPILib Notifiers
+ */
+public class FPGAClock extends Clock
+{
+	@Override
+	public double getTime()
+	{
+		return Timer.getFPGATimestamp();
+	}
+
+	@Override
+	public void sleep(double _seconds) throws InterruptedException
+	{
+		long waitTime = (long) (_seconds * 1000.0);
+		if (waitTime > 0)
+		{
+			Thread.sleep(waitTime);
+		}
+	}
+
+	@Override
+	public PeriodicTask createPeriodicTask(Runnable _task)
+	{
+		final Notifier notifier = new Notifier(_task);
+
+		return new PeriodicTask()
+		{
+			@Override
+			public void startPeriodic(double _period) { notifier.startPeriodic(_period); }
+
+			@Override
+			public void stop() { notifier.stop(); }
+		};
+	}
+}
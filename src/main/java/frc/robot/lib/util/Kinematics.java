@@ -77,6 +77,17 @@ public class Kinematics
     	double angularSpeed = dSpeed * 2 * DriveLoop.kTrackScrubFactor / DriveLoop.kTrackEffectiveDiameter;		// angular velocity (in rad/sec) due to differential speed
         return new LinearAngularSpeed(linearSpeed, angularSpeed);			
     }
+
+    // primitive versions of forwardKinematics(), which don't allocate
+    public static double forwardKinematicsLinear(double _lSpeed, double _rSpeed)
+    {
+    	return (_lSpeed + _rSpeed)/2;
+    }
+
+    public static double forwardKinematicsAngular(double _lSpeed, double _rSpeed)
+    {
+    	return (_rSpeed - _lSpeed)/2 * 2 * DriveLoop.kTrackScrubFactor / DriveLoop.kTrackEffectiveDiameter;
+    }
     
     /**
      * Forward kinematics using encoders and explicitly measured rotation (ie. from gyro)
@@ -95,6 +106,11 @@ public class Kinematics
     	LinearAngularSpeed speed = forwardKinematics(_lSpeed, _rSpeed, _gyroAngle - _currentPose.getHeading());
         return travelArc(_currentPose, speed);
     }
+
+    public static Pose integrateForwardKinematics(Pose _currentPose, double _lSpeed, double _rSpeed, double _gyroAngle, Pose _out)
+    {
+    	return travelArc(_currentPose, (_lSpeed + _rSpeed)/2, _gyroAngle - _currentPose.getHeading(), _out);
+    }
     
     // Obtain a new Pose from travel along a constant curvature path.
     public static Pose travelArc(Pose _initialPose, LinearAngularSpeed _speed)
@@ -116,6 +132,18 @@ public class Kinematics
 		return finalPose;
     }
 
+    // as above, with distance traveled and change in heading as primitives, writing the result into _out (which may be _initialPose)
+    public static Pose travelArc(Pose _initialPose, double _distance, double _dHeading, Pose _out)
+    {
+		double L = _distance;
+		if (Math.abs(_dHeading) > 1e-9)
+			L = 2*_distance*Math.sin(_dHeading/2)/_dHeading;
+
+		double heading = _initialPose.getHeading();
+		double avgHeading = heading + _dHeading/2;
+		return _out.set(_initialPose.getX() + L*Math.cos(avgHeading), _initialPose.getY() + L*Math.sin(avgHeading), heading + _dHeading);
+    }
+
     
     
     
@@ -151,4 +179,18 @@ public class Kinematics
         double dSpeed = _angularSpeed * DriveLoop.kTrackEffectiveDiameter / (2 * DriveLoop.kTrackScrubFactor);
         return new WheelSpeed(_linearSpeed - dSpeed, _linearSpeed + dSpeed); 
     }
+
+    // "into" versions of the above, which write the result into _out and return it
+    public static WheelSpeed inverseKinematicsFromSpeedCurvature(double _linearSpeed, double _curvature, WheelSpeed _out)
+    {
+    	return inverseKinematics(_linearSpeed, _linearSpeed * _curvature, _out);
+    }
+
+    public static WheelSpeed inverseKinematics(double _linearSpeed, double _angularSpeed, WheelSpeed _out) 
+    {
+        double dSpeed = _angularSpeed * DriveLoop.kTrackEffectiveDiameter / (2 * DriveLoop.kTrackScrubFactor);
+        _out.left  = _linearSpeed - dSpeed;
+        _out.right = _linearSpeed + dSpeed;
+        return _out;
+    }
 }
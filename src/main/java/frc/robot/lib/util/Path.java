@@ -27,6 +27,7 @@ public class Path
     protected List<PathSegment> segments;
     protected Set<String> markersCrossed;
     private double lookaheadDistance;
+    private final Util.ClosestPointOnSegment closestPointScratch = new Util.ClosestPointOnSegment();	// reused by update()
 
     // when path is reversed:
     // 1. start/end of each segment are swapped for the purposes of keeping track of progress
@@ -161,13 +162,13 @@ public class Path
     public double update(Vector2d _position) 
     {
         double distOffPath = 0.0;
-        Util.ClosestPointOnSegment closestPoint;
+        Util.ClosestPointOnSegment closestPoint = closestPointScratch;
         
         for (Iterator<PathSegment> it = segments.iterator(); it.hasNext();) 	// use Iterator, as we'll be removing segments in this loop
         {
         	// calculate distance from segment
             PathSegment currSegment = it.next();
-            closestPoint = currSegment.getClosestPoint(_position);
+            currSegment.getClosestPoint(_position, closestPoint);
             
             // check if segment has been completed
             if (closestPoint.index >= kSegmentCompletePercentage) 
@@ -193,7 +194,7 @@ public class Path
                 if (it.hasNext()) 
                 {
                     PathSegment nextSegment = it.next();
-                    closestPoint = nextSegment.getClosestPoint(_position);
+                    nextSegment.getClosestPoint(_position, closestPoint);
                     
                     if (closestPoint.index > 0 &&
                     	closestPoint.index < kSegmentCompletePercentage &&
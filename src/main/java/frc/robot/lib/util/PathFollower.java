@@ -12,8 +12,6 @@ import frc.robot.subsystems.Drive;
 
 import java.util.Optional;
 
-import edu.wpi.first.wpilibj.Timer;
-
 
 /**
  * Action for following a path defined by a Path object.
@@ -58,7 +56,11 @@ public class PathFollower
 	public double speed;
 	public double curvature;
 
-	public WheelSpeed wheelSpeed;
+	public WheelSpeed wheelSpeed = new WheelSpeed();
+
+	// scratch vectors, reused every cycle
+	private final Vector2d robotToLookahead = new Vector2d();
+	private final Vector2d shooterToGoal = new Vector2d();
 	
 	private double prevSpeed;
 	private double prevTime;
@@ -90,7 +92,7 @@ public class PathFollower
 		//---------------------------------------------------
 		
 		currentPose = robotState.getLatestFieldToVehicle();		
-		currentTime = Timer.getFPGATimestamp();
+		currentTime = Clock.getInstance().getTime();
 
 		//---------------------------------------------------
 		// Process
@@ -107,7 +109,7 @@ public class PathFollower
 	public WheelSpeed pathVisionDrive(double _currentTime, Pose _currentPose)
 	{
 		if (prevTime < 0)				// initial setting of prevTime is important to limit initial acceleration
-			prevTime = _currentTime;	// avoid calling Timer.getFPGATimestamp() in this function to allow off-robot testing
+			prevTime = _currentTime;	// avoid reading the Clock in this function to allow off-robot testing
 		
 		System.out.println("At " + _currentPose + "  Driving to " + path.getSegmentEnd());
 		
@@ -150,7 +152,7 @@ public class PathFollower
 			curvature = -curvature;	// TODO: simplify by removing this, and removing flipping heading 180 degrees below?
 		}
 		
-		wheelSpeed = Kinematics.inverseKinematicsFromSpeedCurvature(speed, curvature);
+		Kinematics.inverseKinematicsFromSpeedCurvature(speed, curvature, wheelSpeed);
 		wheelSpeed.limit(maxSpeed);
 		return wheelSpeed;
 	}
@@ -175,9 +177,9 @@ public class PathFollower
 		//---------------------------------------------------
 		// Find arc to travel to Lookahead Point
 		//---------------------------------------------------
-		Vector2d robotToTarget = lookaheadPoint.sub(_currentPose.getPosition());
-		lookaheadDist = robotToTarget.length();
-		bearingToTarget = robotToTarget.angle() - _currentPose.getHeading();
+		lookaheadPoint.sub(_currentPose.getPosition(), robotToLookahead);
+		lookaheadDist = robotToLookahead.length();
+		bearingToTarget = robotToLookahead.angle() - _currentPose.getHeading();
 		if (path.getReverseDirection())
 			bearingToTarget -= Math.PI;	// flip robot around
 		
@@ -224,7 +226,7 @@ public class PathFollower
             // Get range and angle to target
             fieldToGoal = currentFieldToGoal.get();
             fieldToShooter = RobotState.getInstance().getFieldToShooter(currentTime);
-		    Vector2d shooterToGoal = fieldToGoal.sub(fieldToShooter.getPosition());
+		    fieldToGoal.sub(fieldToShooter.getPosition(), shooterToGoal);
 	    	distanceToGoal = shooterToGoal.length();
 			bearingToGoal = shooterToGoal.angle() - fieldToShooter.getHeading(); 	// bearing relative to shooter's heading
 
@@ -67,14 +67,16 @@ public class PathSegment
     public PathSegment(Vector2d _start, Vector2d _end, Options _options) 
     {
         end = _end;
+        start = new Vector2d();			// owned by this segment (not shared with the waypoint), so updateStart() can overwrite it
+        startToEnd = new Vector2d();
         updateStart(_start);
         options = new Options(_options);
     }
 
     public void updateStart(Vector2d newStart)
     {
-        start = newStart;		
-        startToEnd = end.sub(start);
+        start.set(newStart);		
+        end.sub(start, startToEnd);
         length = startToEnd.length();
     }
 
@@ -97,6 +99,11 @@ public class PathSegment
     {
     	return Util.getClosestPointOnSegment(start, end, _position);  
     }
+
+    public Util.ClosestPointOnSegment getClosestPoint(Vector2d _position, Util.ClosestPointOnSegment _rv)
+    {
+    	return Util.getClosestPointOnSegment(start, end, _position, _rv);  
+    }
     
 
     public Vector2d interpolate(double index)
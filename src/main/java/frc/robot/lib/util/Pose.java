@@ -59,6 +59,23 @@ public class Pose implements Interpolable<Pose>
     	return new Pose(p, _theta);		// arbitrarily setting heading to theta
     }
     
+    /**
+     * Overwrite this pose.  Only for poses owned by the caller (scratch poses
+     * passed as _out to the "into" methods below): Poses handed out by
+     * RobotState, PoseHistory etc. are shared and must not be modified.
+     */
+    public Pose set(double _x, double _y, double _heading)
+    {
+    	position.set(_x, _y);
+    	heading = _heading;
+    	return this;
+    }
+
+    public Pose set(Pose _that)
+    {
+    	return set(_that.position.x, _that.position.y, _that.heading);
+    }
+
     public double getX() { return position.x; }
     public double getY() { return position.y; }
     public Vector2d getPosition() { return position; }
@@ -98,6 +115,29 @@ public class Pose implements Interpolable<Pose>
     	return new Pose(position.rotate(_theta), heading+_theta);
     }
 
+    // "into" versions of add, sub, turn and rotate write the result into _out (which may be this) and return it
+    public Pose add(Vector2d _translation, Pose _out)
+    {
+    	return _out.set(position.x + _translation.x, position.y + _translation.y, heading);
+    }
+
+    public Pose sub(Vector2d _translation, Pose _out)
+    {
+    	return _out.set(position.x - _translation.x, position.y - _translation.y, heading);
+    }
+
+    public Pose turn(double _theta, Pose _out)
+    {
+    	return _out.set(position.x, position.y, heading+_theta);
+    }
+
+    public Pose rotate(double _theta, Pose _out)
+    {
+		double cos = Math.cos(_theta);
+		double sin = Math.sin(_theta);
+    	return _out.set(position.x * cos - position.y * sin, position.x * sin + position.y * cos, heading+_theta);
+    }
+
     // get distance from this pose to vector v
     public double distance(Vector2d _that)
     {
@@ -134,6 +174,14 @@ public class Pose implements Interpolable<Pose>
         return new Pose(iPosition, iHeading);
     }
 
+    public Pose interpolate(Pose _that, double _u, Pose _out)
+    {
+    	double u = Util.limit(_u, 0, 1);
+    	return _out.set(position.x + u*(_that.position.x - position.x),
+    					position.y + u*(_that.position.y - position.y),
+    					heading    + u*(_that.heading    - heading));
+    }
+
     
     
     @Override
@@ -158,6 +206,16 @@ public class Pose implements Interpolable<Pose>
 		return poseRelNewCS;
 	}
 
+	// as above, writing the result into _out (which may be this or _currentCSrelToNewCS)
+	public Pose changeCoordinateSystem(Pose _currentCSrelToNewCS, Pose _out)
+	{
+		double cos = Math.cos(_currentCSrelToNewCS.heading);
+		double sin = Math.sin(_currentCSrelToNewCS.heading);
+		return _out.set(position.x * cos - position.y * sin + _currentCSrelToNewCS.position.x,
+						position.x * sin + position.y * cos + _currentCSrelToNewCS.position.y,
+						heading + _currentCSrelToNewCS.heading);
+	}
+
 	// inverse of above function, where you have the pose of the new coordinate system with respect to the current one
 	// this: Pose of some object relative to the current coordinate system
 	// _newCSrelToCurrentCS: contains the location of the origin of the new coordinate system (the coordinate system of this Pose) and 
@@ -173,6 +231,16 @@ public class Pose implements Interpolable<Pose>
 		poseRelCurrentCS = poseRelCurrentCS.rotate(-_newCSrelToCurrentCS.heading);	// then rotate by -angle of new CS
 		return poseRelCurrentCS;
     }
+
+	// as above, writing the result into _out (which may be this or _newCSrelToCurrentCS)
+	public Pose inverseChangeCoordinateSystem(Pose _newCSrelToCurrentCS, Pose _out)
+	{
+		double dx = position.x - _newCSrelToCurrentCS.position.x;
+		double dy = position.y - _newCSrelToCurrentCS.position.y;
+		double cos = Math.cos(-_newCSrelToCurrentCS.heading);
+		double sin = Math.sin(-_newCSrelToCurrentCS.heading);
+		return _out.set(dx * cos - dy * sin, dx * sin + dy * cos, heading - _newCSrelToCurrentCS.heading);
+	}
 	
 }
 
@@ -0,0 +1,373 @@
+package frc.robot.lib.util;
+
+/**
+ * Extended Kalman filter estimate of the robot's field pose (x, y, heading),
+ * fusing wheel encoders and gyro (every loop) with vision sightings of
+ * vision targets at known field positions (landmarks).
+ *
+ * Prediction uses the same constant-curvature arc as
+ * Kinematics.travelArc(), so without vision the estimate is identical to the
+ * dead-reckoned odometry.  Each vision sighting pulls the pose towards the one
+ * that would have seen the target where the camera saw it.
+ *
+ * Vision results arrive some time after the image was captured.  The filter
+ * keeps a short history of odometry inputs, states and covariances.  When a
+ * sighting arrives it rewinds to the image capture time, applies the
+ * correction there, and replays the odometry recorded since then.
+ *
+ * All storage is preallocated: predict() and addLandmarkObservation() do
+ * not allocate.  Not thread-safe: callers (RobotState) synchronize access.
+ */
+public class PoseEstimator
+{
+	// process noise
+	public static double kDistanceNoise = 0.05;			// fraction of distance traveled (1-sigma)
+	public static double kCrossTrackNoise = 0.02;		// fraction of distance traveled, perpendicular to travel
+	public static double kHeadingNoise = 0.01;			// fraction of gyro heading change
+	public static double kHeadingDrift = 0.002;			// rad/sqrt(sec) gyro random walk
+
+	// measurement noise
+	public static double kVisionNoise = 2.0;			// inches (1-sigma) at zero range
+	public static double kVisionNoisePerInch = 0.03;	// additional inches per inch of range
+
+	// reject sightings whose squared Mahalanobis distance to every landmark is larger than this,
+	// or that are within it for more than one landmark (e.g. the closely spaced cargo ship targets)
+	public static double kGateChiSquared = 9.21;		// 99% for 2 degrees of freedom
+
+	public static double kInitialPositionSigma = 1.0;	// inches
+	public static double kInitialHeadingSigma = 0.01;	// radians
+
+	// history, indexed by physical index (circular)
+	private final int capacity;
+	private final double[] timestamps;
+	private final double[] distances;		// odometry input: distance traveled since previous entry
+	private final double[] dHeadings;		// odometry input: change in gyro heading since previous entry
+	private final double[] xs, ys, headings;
+	private final double[] covariances;		// 3x3 covariance for each entry, row-major
+	private int head = 0;					// physical index of oldest entry
+	private int size = 0;
+
+	// known landmark positions
+	private double[] landmarkXs = new double[0];
+	private double[] landmarkYs = new double[0];
+	private int numLandmarks = 0;
+
+	// scratch storage
+	private final double[] p = new double[9];
+	private final double[] pht = new double[6];		// P*H' (3x2)
+	private final double[] gain = new double[6];	// Kalman gain (3x2)
+
+	// statistics
+	private int numCorrections = 0;
+	private int numRejected = 0;
+	private int numReplayed = 0;		// entries recomputed by the last correction
+	private double lastInnovation = 0;	// inches
+
+	public PoseEstimator(int _capacity)
+	{
+		capacity = _capacity;
+		timestamps = new double[capacity];
+		distances = new double[capacity];
+		dHeadings = new double[capacity];
+		xs = new double[capacity];
+		ys = new double[capacity];
+		headings = new double[capacity];
+		covariances = new double[9 * capacity];
+	}
+
+	/**
+	 * Set the known positions of vision targets (copied)
+	 */
+	public void setLandmarks(double[] _xs, double[] _ys, int _num)
+	{
+		landmarkXs = new double[_num];
+		landmarkYs = new double[_num];
+		System.arraycopy(_xs, 0, landmarkXs, 0, _num);
+		System.arraycopy(_ys, 0, landmarkYs, 0, _num);
+		numLandmarks = _num;
+	}
+
+	/**
+	 * Start over from a known pose (e.g. the autonomous starting pose)
+	 */
+	public void reset(double _timestamp, double _x, double _y, double _heading)
+	{
+		head = 0;
+		size = 1;
+		timestamps[0] = _timestamp;
+		distances[0] = 0;
+		dHeadings[0] = 0;
+		xs[0] = _x;
+		ys[0] = _y;
+		headings[0] = _heading;
+
+		double posVar = kInitialPositionSigma * kInitialPositionSigma;
+		double headingVar = kInitialHeadingSigma * kInitialHeadingSigma;
+		for (int k = 0; k < 9; k++)
+			covariances[k] = 0;
+		covariances[0] = posVar;
+		covariances[4] = posVar;
+		covariances[8] = headingVar;
+	}
+
+	// physical index of the _k'th oldest entry
+	private int index(int _k)
+	{
+		int i = head + _k;
+		return (i >= capacity) ? i - capacity : i;
+	}
+
+	/**
+	 * Advance the estimate with odometry
+	 * @param _timestamp time of the encoder/gyro readings
+	 * @param _distance distance traveled by center of robot since last call (inches)
+	 * @param _dHeading change in gyro heading since last call (radians)
+	 */
+	public void predict(double _timestamp, double _distance, double _dHeading)
+	{
+		int prev = index(size - 1);
+		int next;
+		if (size < capacity)
+		{
+			next = index(size);
+			size++;
+		}
+		else
+		{
+			next = head;		// overwrite oldest
+			head = index(1);
+		}
+
+		timestamps[next] = _timestamp;
+		distances[next] = _distance;
+		dHeadings[next] = _dHeading;
+		propagate(prev, next);
+	}
+
+	// compute state and covariance of entry _next from entry _prev and the odometry stored in _next
+	private void propagate(int _prev, int _next)
+	{
+		double D = distances[_next];
+		double dTheta = dHeadings[_next];
+		double dt = Math.max(timestamps[_next] - timestamps[_prev], 0);
+
+		// same arc as Kinematics.travelArc()
+		double L = D;
+		if (Math.abs(dTheta) > 1e-9)
+			L = 2 * D * Math.sin(dTheta / 2) / dTheta;
+		double a = headings[_prev] + dTheta / 2;
+		double c = Math.cos(a);
+		double s = Math.sin(a);
+
+		xs[_next] = xs[_prev] + L * c;
+		ys[_next] = ys[_prev] + L * s;
+		headings[_next] = headings[_prev] + dTheta;
+
+		// P' = F*P*F' + Q, where F = [1 0 f02; 0 1 f12; 0 0 1]
+		double f02 = -L * s;
+		double f12 = L * c;
+		int b = 9 * _prev;
+		double p00 = covariances[b],     p01 = covariances[b + 1], p02 = covariances[b + 2];
+		double p11 = covariances[b + 4], p12 = covariances[b + 5], p22 = covariances[b + 8];
+
+		double r00 = p00 + f02 * p02, r01 = p01 + f02 * p12, r02 = p02 + f02 * p22;	// row 0 of F*P
+		double r11 = p11 + f12 * p12, r12 = p12 + f12 * p22;						// row 1 of F*P
+
+		double sD = kDistanceNoise * Math.abs(D);
+		double sC = kCrossTrackNoise * Math.abs(D);
+		double varD = sD * sD;
+		double varC = sC * sC;
+		double sH = kHeadingNoise * Math.abs(dTheta);
+		double varH = sH * sH + kHeadingDrift * kHeadingDrift * dt;
+
+		double n00 = r00 + f02 * r02 + c * c * varD + s * s * varC;
+		double n01 = r01 + f12 * r02 + c * s * (varD - varC);
+		double n02 = r02;
+		double n11 = r11 + f12 * r12 + s * s * varD + c * c * varC;
+		double n12 = r12;
+		double n22 = p22 + varH;
+
+		int n = 9 * _next;
+		covariances[n]     = n00; covariances[n + 1] = n01; covariances[n + 2] = n02;
+		covariances[n + 3] = n01; covariances[n + 4] = n11; covariances[n + 5] = n12;
+		covariances[n + 6] = n02; covariances[n + 7] = n12; covariances[n + 8] = n22;
+	}
+
+	/**
+	 * Correct the estimate with a vision sighting of a landmark.  The landmark
+	 * is chosen as the one most consistent with the current estimate.
+	 *
+	 * @param _timestamp image capture time
+	 * @param _zx position of target relative to the robot, X axis forwards (inches)
+	 * @param _zy position of target relative to the robot, Y axis to the left (inches)
+	 * @param _range distance from camera to target, used to scale measurement noise
+	 * @return true if the sighting was used
+	 */
+	public boolean addLandmarkObservation(double _timestamp, double _zx, double _zy, double _range)
+	{
+		numReplayed = 0;
+		if (size == 0 || numLandmarks == 0 || _timestamp < timestamps[head])
+		{
+			numRejected++;
+			return false;		// no estimate yet, or image older than history
+		}
+
+		// rewind: find last entry at or before the image was captured
+		int lo = 0;
+		int hi = size - 1;
+		while (lo < hi)
+		{
+			int mid = (lo + hi + 1) >>> 1;
+			if (timestamps[index(mid)] <= _timestamp)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		int k = lo;
+		int i = index(k);
+
+		double x = xs[i];
+		double y = ys[i];
+		double theta = headings[i];
+		double c = Math.cos(theta);
+		double s = Math.sin(theta);
+		System.arraycopy(covariances, 9 * i, p, 0, 9);
+
+		double sigma = kVisionNoise + kVisionNoisePerInch * Math.abs(_range);
+		double r = sigma * sigma;
+
+		// find best landmark by Mahalanobis distance
+		double bestD2 = Double.MAX_VALUE;
+		double secondD2 = Double.MAX_VALUE;
+		double bestInnovX = 0, bestInnovY = 0;
+		double bestS00 = 0, bestS01 = 0, bestS11 = 0;
+		double bestH02 = 0, bestH12 = 0;
+		for (int m = 0; m < numLandmarks; m++)
+		{
+			double dx = landmarkXs[m] - x;
+			double dy = landmarkYs[m] - y;
+			double hx =  c * dx + s * dy;		// predicted position of landmark relative to robot
+			double hy = -s * dx + c * dy;
+
+			// H = [-c -s hy; s -c -hx]
+			double h02 = hy;
+			double h12 = -hx;
+			computePHt(c, s, h02, h12);
+			double s00 = -c * pht[0] - s * pht[2] + h02 * pht[4] + r;
+			double s01 = -c * pht[1] - s * pht[3] + h02 * pht[5];
+			double s11 =  s * pht[1] - c * pht[3] + h12 * pht[5] + r;
+
+			double det = s00 * s11 - s01 * s01;
+			if (det <= 0)
+				continue;
+			double ix = _zx - hx;
+			double iy = _zy - hy;
+			double d2 = (s11 * ix * ix - 2 * s01 * ix * iy + s00 * iy * iy) / det;
+			if (d2 < bestD2)
+			{
+				secondD2 = bestD2;
+				bestD2 = d2;
+				bestInnovX = ix;
+				bestInnovY = iy;
+				bestS00 = s00;
+				bestS01 = s01;
+				bestS11 = s11;
+				bestH02 = h02;
+				bestH12 = h12;
+			}
+			else if (d2 < secondD2)
+			{
+				secondD2 = d2;
+			}
+		}
+
+		if (bestD2 > kGateChiSquared || secondD2 <= kGateChiSquared)
+		{
+			numRejected++;
+			return false;		// doesn't match any landmark well enough, or could be either of two
+		}
+
+		// K = P*H'*inv(S)
+		computePHt(c, s, bestH02, bestH12);
+		double det = bestS00 * bestS11 - bestS01 * bestS01;
+		double i00 =  bestS11 / det;
+		double i01 = -bestS01 / det;
+		double i11 =  bestS00 / det;
+		for (int row = 0; row < 3; row++)
+		{
+			gain[2 * row]     = pht[2 * row] * i00 + pht[2 * row + 1] * i01;
+			gain[2 * row + 1] = pht[2 * row] * i01 + pht[2 * row + 1] * i11;
+		}
+
+		// x = x + K*innovation
+		xs[i]       = x     + gain[0] * bestInnovX + gain[1] * bestInnovY;
+		ys[i]       = y     + gain[2] * bestInnovX + gain[3] * bestInnovY;
+		headings[i] = theta + gain[4] * bestInnovX + gain[5] * bestInnovY;
+
+		// P = P - K*(P*H')'
+		int b = 9 * i;
+		for (int row = 0; row < 3; row++)
+		{
+			for (int col = 0; col < 3; col++)
+			{
+				covariances[b + 3 * row + col] = p[3 * row + col]
+						- gain[2 * row] * pht[2 * col] - gain[2 * row + 1] * pht[2 * col + 1];
+			}
+		}
+		// keep symmetric
+		for (int row = 0; row < 3; row++)
+		{
+			for (int col = row + 1; col < 3; col++)
+			{
+				double avg = 0.5 * (covariances[b + 3 * row + col] + covariances[b + 3 * col + row]);
+				covariances[b + 3 * row + col] = avg;
+				covariances[b + 3 * col + row] = avg;
+			}
+		}
+
+		// replay odometry since the image was captured
+		for (int j = k + 1; j < size; j++)
+		{
+			propagate(index(j - 1), index(j));
+		}
+		numReplayed = size - 1 - k;
+
+		numCorrections++;
+		lastInnovation = Math.sqrt(bestInnovX * bestInnovX + bestInnovY * bestInnovY);
+		return true;
+	}
+
+	// pht = P*H' for H = [-c -s h02; s -c h12]
+	private void computePHt(double _c, double _s, double _h02, double _h12)
+	{
+		for (int row = 0; row < 3; row++)
+		{
+			double p0 = p[3 * row], p1 = p[3 * row + 1], p2 = p[3 * row + 2];
+			pht[2 * row]     = -_c * p0 - _s * p1 + _h02 * p2;
+			pht[2 * row + 1] =  _s * p0 - _c * p1 + _h12 * p2;
+		}
+	}
+
+	public int size() { return size; }
+
+	// latest estimate
+	public double getTimestamp() { return timestamps[index(size - 1)]; }
+	public double getX()         { return xs[index(size - 1)]; }
+	public double getY()         { return ys[index(size - 1)]; }
+	public double getHeading()   { return headings[index(size - 1)]; }
+
+	/** element of the latest 3x3 covariance of (x, y, heading) */
+	public double getCovariance(int _row, int _col) { return covariances[9 * index(size - 1) + 3 * _row + _col]; }
+
+	// history, _age = 0 for latest entry, 1 for the one before, ...
+	public double getTimestamp(int _age) { return timestamps[index(size - 1 - _age)]; }
+	public double getX(int _age)         { return xs[index(size - 1 - _age)]; }
+	public double getY(int _age)         { return ys[index(size - 1 - _age)]; }
+	public double getHeading(int _age)   { return headings[index(size - 1 - _age)]; }
+
+	public int getNumCorrections() { return numCorrections; }
+	public int getNumRejected() { return numRejected; }
+	/** number of entries after the correction point that were recomputed by the last correction */
+	public int getNumReplayed() { return numReplayed; }
+	public double getLastInnovation() { return lastInnovation; }
+}
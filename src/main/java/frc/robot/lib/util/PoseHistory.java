@@ -0,0 +1,222 @@
+package frc.robot.lib.util;
+
+/**
+ * A fixed-capacity history of timestamped poses, used to look up where the
+ * robot was when a (delayed) sensor measurement was taken.
+ *
+ * Replaces InterpolatingTreeMap<InterpolatingDouble, Pose>.  The timestamps,
+ * x, y and heading are stored in parallel circular arrays, so adding a pose
+ * does not allocate, and lookups are a binary search.  When full, the oldest
+ * pose is overwritten.
+ *
+ * getInterpolated() has the same semantics as InterpolatingTreeMap: an exact
+ * timestamp returns that pose, a timestamp outside the history returns the
+ * nearest end, and anything else is linearly interpolated between the poses
+ * on either side.
+ *
+ * Not thread-safe: callers (RobotState) synchronize access.
+ */
+public class PoseHistory
+{
+	private final int capacity;
+	private final double[] timestamps;
+	private final double[] xs;
+	private final double[] ys;
+	private final double[] headings;
+	private int head = 0;		// physical index of oldest pose
+	private int size = 0;
+
+	private Pose latestPose = null;	// built from the stored values by getLatest(), and never modified
+
+	public PoseHistory(int _capacity)
+	{
+		capacity = _capacity;
+		timestamps = new double[capacity];
+		xs = new double[capacity];
+		ys = new double[capacity];
+		headings = new double[capacity];
+	}
+
+	public void clear()
+	{
+		head = 0;
+		size = 0;
+		latestPose = null;
+	}
+
+	public int size() { return size; }
+	public boolean isEmpty() { return size == 0; }
+
+	// physical index of the _k'th oldest pose
+	private int index(int _k)
+	{
+		int i = head + _k;
+		return (i >= capacity) ? i - capacity : i;
+	}
+
+	public void add(double _timestamp, Pose _pose)
+	{
+		add(_timestamp, _pose.getX(), _pose.getY(), _pose.getHeading());
+	}
+
+	/**
+	 * Add a pose.  Timestamps are normally increasing; a pose with the same
+	 * timestamp as an existing one replaces it, and an older timestamp is
+	 * inserted in order.  When full, a pose older than every kept pose is
+	 * ignored (as InterpolatingTreeMap would immediately evict it).
+	 */
+	public void add(double _timestamp, double _x, double _y, double _heading)
+	{
+		int k = size;		// logical position to insert at
+		if (size > 0 && _timestamp <= timestamps[index(size - 1)])
+		{
+			// uncommon: replace or insert in the middle
+			k = floor(_timestamp);
+			if (k >= 0 && timestamps[index(k)] == _timestamp)
+			{
+				set(index(k), _timestamp, _x, _y, _heading);
+				if (k == size - 1)
+					latestPose = null;
+				return;
+			}
+			k++;
+		}
+
+		if (size == capacity)
+		{
+			if (k == 0)
+				return;		// older than everything kept: leave the history as it is
+
+			// drop oldest
+			head = index(1);
+			size--;
+			k--;
+		}
+
+		// shift newer poses up to make room (no shifting for normal in-order add)
+		for (int j = size; j > k; j--)
+		{
+			int dst = index(j);
+			int src = index(j - 1);
+			set(dst, timestamps[src], xs[src], ys[src], headings[src]);
+		}
+		set(index(k), _timestamp, _x, _y, _heading);
+		size++;
+
+		if (k == size - 1)
+			latestPose = null;
+	}
+
+	private void set(int _i, double _timestamp, double _x, double _y, double _heading)
+	{
+		timestamps[_i] = _timestamp;
+		xs[_i] = _x;
+		ys[_i] = _y;
+		headings[_i] = _heading;
+	}
+
+	// logical index of last pose with timestamp <= _timestamp, or -1
+	private int floor(double _timestamp)
+	{
+		int lo = 0;
+		int hi = size - 1;
+		int result = -1;
+		while (lo <= hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (timestamps[index(mid)] <= _timestamp)
+			{
+				result = mid;
+				lo = mid + 1;
+			}
+			else
+			{
+				hi = mid - 1;
+			}
+		}
+		return result;
+	}
+
+	public double getLatestTimestamp() { return timestamps[index(size - 1)]; }
+	public double getLatestX()         { return xs[index(size - 1)]; }
+	public double getLatestY()         { return ys[index(size - 1)]; }
+	public double getLatestHeading()   { return headings[index(size - 1)]; }
+
+	/**
+	 * Returns the newest pose, or null if empty
+	 */
+	public Pose getLatest()
+	{
+		if (size == 0)
+			return null;
+
+		if (latestPose == null)
+		{
+			int i = index(size - 1);
+			latestPose = new Pose(xs[i], ys[i], headings[i]);
+		}
+		return latestPose;
+	}
+
+	/**
+	 * Returns the pose at _timestamp, interpolating between the stored poses,
+	 * or null if empty
+	 */
+	public Pose getInterpolated(double _timestamp)
+	{
+		if (size == 0)
+			return null;
+
+		int k = floor(_timestamp);
+		if (k == size - 1)
+		{
+			// at or after newest pose
+			return getLatest();
+		}
+		if (k < 0)
+		{
+			// before oldest pose
+			int i = index(0);
+			return new Pose(xs[i], ys[i], headings[i]);
+		}
+
+		int lo = index(k);
+		if (timestamps[lo] == _timestamp)
+			return new Pose(xs[lo], ys[lo], headings[lo]);
+
+		int hi = index(k + 1);
+		double u = (_timestamp - timestamps[lo]) / (timestamps[hi] - timestamps[lo]);
+		if (u < 0) u = 0;
+		if (u > 1) u = 1;
+
+		return new Pose(xs[lo] + u * (xs[hi] - xs[lo]),
+						ys[lo] + u * (ys[hi] - ys[lo]),
+						headings[lo] + u * (headings[hi] - headings[lo]));
+	}
+
+	/**
+	 * As above, writing the pose into _out without allocating.  _out is left
+	 * unchanged if the history is empty.
+	 */
+	public Pose getInterpolated(double _timestamp, Pose _out)
+	{
+		if (size == 0)
+			return _out;
+
+		int k = floor(_timestamp);
+		if (k < 0)
+			k = 0;						// before oldest pose
+		int lo = index(k);
+		if (k == size - 1 || timestamps[lo] == _timestamp || _timestamp < timestamps[lo])
+			return _out.set(xs[lo], ys[lo], headings[lo]);		// at a stored pose, or outside the history
+
+		int hi = index(k + 1);
+		double u = (_timestamp - timestamps[lo]) / (timestamps[hi] - timestamps[lo]);
+		if (u < 0) u = 0;
+		if (u > 1) u = 1;
+
+		return _out.set(xs[lo] + u * (xs[hi] - xs[lo]),
+						ys[lo] + u * (ys[hi] - ys[lo]),
+						headings[lo] + u * (headings[hi] - headings[lo]));
+	}
+}
@@ -1,6 +1,5 @@
 package frc.robot.lib.util;
 
-import edu.wpi.first.wpilibj.Timer;
 
 /**
  * PulseTrain
@@ -39,7 +38,7 @@ public class PulseTrain
     public void start()
     {
         enabled = true;
-        startTime = Timer.getFPGATimestamp();
+        startTime = Clock.getInstance().getTime();
         state = true;
         pulseCount = 0;
     }
@@ -50,7 +49,7 @@ public class PulseTrain
 
         if (enabled)
         {
-            double currentTime = Timer.getFPGATimestamp();
+            double currentTime = Clock.getInstance().getTime();
             double elapsedTime = currentTime - startTime;
 
             if (state)
@@ -0,0 +1,130 @@
+package frc.robot.lib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Clock for off-robot testing and benchmarking.  Time only moves when
+ * advance() is called (or a thread calls sleep(), which advances time by the
+ * requested amount instead of waiting).
+ * 
+ * Periodic tasks (such as the LoopController cycle) are run in the thread that
+ * advances the clock, at each multiple of their period, with getTime()
+ * returning the exact scheduled time.  This makes runs deterministic: a
+ * 15 second autonomous mode, with all of its loops, runs in however long the
+ * CPU takes to compute it.
+ */
+public class SimulatedClock extends Clock
+{
+	private double time;
+
+	private final List<SimulatedTask> tasks = new ArrayList<>();
+
+	private class SimulatedTask implements PeriodicTask
+	{
+		final Runnable task;
+		double period;
+		double startTime;
+		long count;			// periods since started (avoids accumulating rounding error)
+		double nextTime;
+		boolean running = false;
+
+		SimulatedTask(Runnable _task)
+		{
+			task = _task;
+		}
+
+		@Override
+		public void startPeriodic(double _period)
+		{
+			synchronized (SimulatedClock.this)
+			{
+				period = _period;
+				startTime = time;
+				count = 1;
+				nextTime = startTime + period;
+				running = true;
+			}
+		}
+
+		@Override
+		public void stop()
+		{
+			synchronized (SimulatedClock.this)
+			{
+				running = false;
+			}
+		}
+	}
+
+	public SimulatedClock()
+	{
+		this(0.0);
+	}
+
+	public SimulatedClock(double _startTime)
+	{
+		time = _startTime;
+	}
+
+	@Override
+	public synchronized double getTime()
+	{
+		return time;
+	}
+
+	@Override
+	public void sleep(double _seconds)
+	{
+		advance(_seconds);
+	}
+
+	@Override
+	public synchronized PeriodicTask createPeriodicTask(Runnable _task)
+	{
+		SimulatedTask task = new SimulatedTask(_task);
+		tasks.add(task);
+		return task;
+	}
+
+	/**
+	 * Move time forward by _seconds, running every periodic task that comes due
+	 * along the way (in time order)
+	 */
+	public void advance(double _seconds)
+	{
+		double endTime;
+		synchronized (this)
+		{
+			endTime = time + Math.max(_seconds, 0.0);
+		}
+
+		while (true)
+		{
+			SimulatedTask next = null;
+			synchronized (this)
+			{
+				for (SimulatedTask task : tasks)
+				{
+					if (task.running && task.nextTime <= endTime && (next == null || task.nextTime < next.nextTime))
+					{
+						next = task;
+					}
+				}
+
+				if (next == null)
+				{
+					time = endTime;
+					return;
+				}
+
+				time = next.nextTime;
+				next.count++;
+				next.nextTime = next.startTime + next.count * next.period;
+			}
+
+			// run outside the lock so the task can read the clock from other threads
+			next.task.run();
+		}
+	}
+}
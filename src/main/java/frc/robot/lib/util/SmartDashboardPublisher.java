@@ -0,0 +1,218 @@
+package frc.robot.lib.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Publishes values to SmartDashboard, skipping values that haven't changed.
+ *
+ * Each key remembers the last value written to NetworkTables.  A new value is
+ * written only if it differs from the last one by more than the key's
+ * deadband, and no more often than the key's maximum rate.  A change that
+ * arrives too soon is held and written once the key's period has passed, so
+ * the dashboard always ends up with the latest value.
+ *
+ * Values are collected with update() during a cycle and written together by
+ * flush() at the end of the cycle.
+ */
+public class SmartDashboardPublisher
+{
+	public static final double kDefaultDeadband = 0.0;		// publish any change
+	public static final double kDefaultMaxRate = 10.0;		// Hz (NetworkTables sends every 100 ms anyway)
+
+	// per key, indexed by key handle
+	private int numKeys = 0;
+	private NetworkTableEntry[] entries = new NetworkTableEntry[64];
+	private String[] names = new String[64];
+	private double[] deadband = new double[64];
+	private double[] minPeriod = new double[64];
+	private boolean[] published = new boolean[64];		// written at least once
+	private double[] lastPublishTime = new double[64];
+	private boolean[] pending = new boolean[64];		// changed, waiting to be written
+	private DataLogger.ChannelType[] types = new DataLogger.ChannelType[64];
+	private double[] doubles = new double[64];			// latest DOUBLE value
+	private long[] longs = new long[64];				// latest INT and BOOLEAN value
+	private String[] strings = new String[64];			// latest STRING value
+	private double[] lastDoubles = new double[64];		// last written values
+	private long[] lastLongs = new long[64];
+	private String[] lastStrings = new String[64];
+	private final Map<String, Integer> keysByName = new HashMap<String, Integer>();
+
+	// deadband and rate settings, applied to keys starting with a prefix
+	private final List<String> deadbandPrefixes = new ArrayList<String>();
+	private final List<Double> deadbandValues = new ArrayList<Double>();
+	private final List<String> ratePrefixes = new ArrayList<String>();
+	private final List<Double> rateValues = new ArrayList<Double>();
+
+	// statistics
+	private long updates = 0;
+	private long sent = 0;
+
+	/**
+	 * Register a key, returning its handle.  Registering an existing key
+	 * returns the existing handle.
+	 */
+	public synchronized int addKey(String _name, DataLogger.ChannelType _type)
+	{
+		Integer existing = keysByName.get(_name);
+		if (existing != null)
+			return existing;
+
+		if (numKeys == names.length)
+			grow();
+
+		int key = numKeys++;
+		names[key] = _name;
+		types[key] = _type;
+		entries[key] = SmartDashboard.getEntry(_name);
+		deadband[key] = getSetting(_name, deadbandPrefixes, deadbandValues, kDefaultDeadband);
+		minPeriod[key] = 1.0 / getSetting(_name, ratePrefixes, rateValues, kDefaultMaxRate);
+		keysByName.put(_name, key);
+		return key;
+	}
+
+	/**
+	 * Only publish DOUBLE values for keys starting with _prefix when they
+	 * change by more than _deadband
+	 */
+	public synchronized void setDeadband(String _prefix, double _deadband)
+	{
+		deadbandPrefixes.add(_prefix);
+		deadbandValues.add(_deadband);
+		for (int key = 0; key < numKeys; key++)
+		{
+			if (names[key].startsWith(_prefix))
+				deadband[key] = _deadband;
+		}
+	}
+
+	/**
+	 * Publish keys starting with _prefix at most _maxRate times per second
+	 * (use Double.POSITIVE_INFINITY for no limit)
+	 */
+	public synchronized void setMaxRate(String _prefix, double _maxRate)
+	{
+		ratePrefixes.add(_prefix);
+		rateValues.add(_maxRate);
+		for (int key = 0; key < numKeys; key++)
+		{
+			if (names[key].startsWith(_prefix))
+				minPeriod[key] = 1.0 / _maxRate;
+		}
+	}
+
+	// last matching setting wins
+	private static double getSetting(String _name, List<String> _prefixes, List<Double> _values, double _default)
+	{
+		double value = _default;
+		for (int k = 0; k < _prefixes.size(); k++)
+		{
+			if (_name.startsWith(_prefixes.get(k)))
+				value = _values.get(k);
+		}
+		return value;
+	}
+
+	private void grow()
+	{
+		int size = 2 * names.length;
+		entries = Arrays.copyOf(entries, size);
+		names = Arrays.copyOf(names, size);
+		deadband = Arrays.copyOf(deadband, size);
+		minPeriod = Arrays.copyOf(minPeriod, size);
+		published = Arrays.copyOf(published, size);
+		lastPublishTime = Arrays.copyOf(lastPublishTime, size);
+		pending = Arrays.copyOf(pending, size);
+		types = Arrays.copyOf(types, size);
+		doubles = Arrays.copyOf(doubles, size);
+		longs = Arrays.copyOf(longs, size);
+		strings = Arrays.copyOf(strings, size);
+		lastDoubles = Arrays.copyOf(lastDoubles, size);
+		lastLongs = Arrays.copyOf(lastLongs, size);
+		lastStrings = Arrays.copyOf(lastStrings, size);
+	}
+
+	public synchronized void update(int _key, double _value)
+	{
+		if (types[_key] == DataLogger.ChannelType.INT)
+		{
+			types[_key] = DataLogger.ChannelType.DOUBLE;	// DataLogger widened the channel
+			lastDoubles[_key] = lastLongs[_key];
+		}
+		updates++;
+		doubles[_key] = _value;
+		double last = lastDoubles[_key];
+		boolean changed = (Math.abs(_value - last) > deadband[_key]) || (Double.isNaN(_value) != Double.isNaN(last));
+		pending[_key] = !published[_key] || changed;
+	}
+
+	public synchronized void update(int _key, long _value)
+	{
+		updates++;
+		longs[_key] = _value;
+		pending[_key] = !published[_key] || (_value != lastLongs[_key]);
+	}
+
+	public synchronized void update(int _key, boolean _value)
+	{
+		update(_key, _value ? 1L : 0L);
+	}
+
+	public synchronized void update(int _key, String _value)
+	{
+		updates++;
+		strings[_key] = (_value != null) ? _value : "";
+		pending[_key] = !published[_key] || !strings[_key].equals(lastStrings[_key]);
+	}
+
+	/**
+	 * Write all changed values whose period has passed to NetworkTables
+	 */
+	public synchronized void flush(double _now)
+	{
+		for (int key = 0; key < numKeys; key++)
+		{
+			if (!pending[key])
+				continue;
+			if (published[key] && (_now - lastPublishTime[key] < minPeriod[key]))
+				continue;		// rate limited: try again next cycle
+
+			switch (types[key])
+			{
+			case DOUBLE:
+				entries[key].setDouble(doubles[key]);
+				lastDoubles[key] = doubles[key];
+				break;
+			case INT:
+				entries[key].setDouble(longs[key]);
+				lastLongs[key] = longs[key];
+				break;
+			case BOOLEAN:
+				entries[key].setBoolean(longs[key] != 0);
+				lastLongs[key] = longs[key];
+				break;
+			case STRING:
+				entries[key].setString(strings[key]);
+				lastStrings[key] = strings[key];
+				break;
+			}
+			published[key] = true;
+			pending[key] = false;
+			lastPublishTime[key] = _now;
+			sent++;
+		}
+	}
+
+	/** number of values given to update() */
+	public synchronized long getUpdates() { return updates; }
+	/** number of values written to NetworkTables */
+	public synchronized long getSent() { return sent; }
+	/** number of values not written because they hadn't changed or were rate limited */
+	public synchronized long getSuppressed() { return updates - sent; }
+}
@@ -37,35 +37,39 @@ public class Util
     {
         public double index; 			// Index of the point on the path segment (not clamped to [0, 1])
         public double clampedIndex; 	// As above, but clamped to [0, 1]
-        public Vector2d point; 	// The result of interpolate(clamped_index)
+        public Vector2d point = new Vector2d(); 	// The result of interpolate(clamped_index)
         public double distance; 		// The distance from closest_point to the query point
     }
     
     // find closest point on segment AB to point P
     public static ClosestPointOnSegment getClosestPointOnSegment(Vector2d _a, Vector2d _b, Vector2d _p) 
     {
-    	ClosestPointOnSegment rv = new ClosestPointOnSegment();
-    	
-    	Vector2d ab = _b.sub(_a);				// line segment AB
-    	double abLengthSqr = ab.lengthSqr();	// |AB|^2
+    	return getClosestPointOnSegment(_a, _b, _p, new ClosestPointOnSegment());
+    }
+
+    // as above, reusing _rv (and its point) rather than allocating
+    public static ClosestPointOnSegment getClosestPointOnSegment(Vector2d _a, Vector2d _b, Vector2d _p, ClosestPointOnSegment _rv) 
+    {
+    	double abx = _b.x - _a.x;					// line segment AB
+    	double aby = _b.y - _a.y;
+    	double abLengthSqr = abx*abx + aby*aby;	// |AB|^2
     	
         if (abLengthSqr < kEpsilon)
         {
         	// segment is very small.  return A (which is near B)
-            rv.index = rv.clampedIndex = 0.0;
-            rv.point = new Vector2d(_a);
+            _rv.index = _rv.clampedIndex = 0.0;
+            _rv.point.set(_a);
         }
         else
         {
-        	Vector2d ap = _p.sub(_a);
-        	double dot = ap.dot(ab);
-            rv.index = dot / abLengthSqr;						// index = |AP|/|AB| cos(angle between AP & AB)   
-            rv.clampedIndex = Util.limit(rv.index, 0.0, 1.0);	// clamp in case nearest point is outside segment
-            rv.point = _a.interpolate(_b, rv.index);			// point on AB closest to P
+        	double dot = (_p.x - _a.x)*abx + (_p.y - _a.y)*aby;
+            _rv.index = dot / abLengthSqr;						// index = |AP|/|AB| cos(angle between AP & AB)   
+            _rv.clampedIndex = Util.limit(_rv.index, 0.0, 1.0);	// clamp in case nearest point is outside segment
+            _a.interpolate(_b, _rv.index, _rv.point);			// point on AB closest to P
         } 
 
-        rv.distance = _p.distance(rv.point);
-        return rv;
+        _rv.distance = _p.distance(_rv.point);
+        return _rv;
     }
 
     public static Optional<Vector2d> getLineIntersection(Pose pose1, Pose pose2)
@@ -30,6 +30,8 @@ public class Vector2d implements Interpolable<Vector2d>
 	// sets/gets
 	public void setX(double x) { this.x = x; }
 	public void setY(double y) { this.y = y; }
+	public Vector2d set(double _x, double _y) { x = _x; y = _y; return this; }
+	public Vector2d set(Vector2d _v) { x = _v.x; y = _v.y; return this; }
 	
     public double getX() { return x; }
 	public double getY() { return y; }
@@ -48,6 +50,12 @@ public class Vector2d implements Interpolable<Vector2d>
     public Vector2d sub(Vector2d _v) { return new Vector2d(x - _v.x, y - _v.y); }
     public Vector2d neg() { return new Vector2d(-x, -y); }
 
+    // "into" versions of the above write the result into _out (which may be this or _v) and return it,
+    // so that code run every cycle can reuse its own scratch vectors instead of allocating
+	public Vector2d add(Vector2d _v, Vector2d _out) { return _out.set(x + _v.x, y + _v.y); }
+    public Vector2d sub(Vector2d _v, Vector2d _out) { return _out.set(x - _v.x, y - _v.y); }
+    public Vector2d neg(Vector2d _out) { return _out.set(-x, -y); }
+
     // absolute value (length) of vector
     public double abs()
     {
@@ -129,6 +137,11 @@ public class Vector2d implements Interpolable<Vector2d>
 
     }
 
+    static public Vector2d magnitudeAngle(double _mag, double _angle, Vector2d _out)
+    {
+    	return _out.set(_mag*Math.cos(_angle), _mag*Math.sin(_angle));
+    }
+
     // normalize angle to within [-pi, pi)
     public static double normalizeAngle(double _theta)
     {
@@ -170,6 +183,14 @@ public class Vector2d implements Interpolable<Vector2d>
 		double y = this.x * sin + this.y * cos;
 		return new Vector2d(x,y);
 	}
+
+	public Vector2d rotate(double _angle, Vector2d _out)
+	{
+		double cos = Math.cos(_angle);
+		double sin = Math.sin(_angle);
+
+		return _out.set(this.x * cos - this.y * sin, this.x * sin + this.y * cos);
+	}
     
 	// Rotates Vector by the given angle
 	public Vector2d rotateDeg(double _angleDeg)
@@ -198,6 +219,12 @@ public class Vector2d implements Interpolable<Vector2d>
         double y = this.y + u*(that.y - this.y);
 		return new Vector2d(x,y);
     }
+
+    public Vector2d interpolate(Vector2d that, double _u, Vector2d _out)
+    {
+    	double u = Util.limit(_u, 0, 1);
+		return _out.set(this.x + u*(that.x - this.x), this.y + u*(that.y - this.y));
+    }
     
 	
 	@Override
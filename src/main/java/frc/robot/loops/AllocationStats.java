@@ -0,0 +1,141 @@
+package frc.robot.loops;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Rolling heap allocation statistics for a Loop: the bytes allocated by the
+ * thread running onLoop(), measured around each call.
+ *
+ * Allocation is read from the HotSpot per-thread allocation counter
+ * (com.sun.management.ThreadMXBean), which counts bytes handed out from the
+ * thread's TLABs and so costs about as much as a System.nanoTime() call.  On
+ * JVMs without the counter, isSupported() returns false and no samples are
+ * taken.
+ *
+ * The last kWindowSize samples are kept in a circular buffer, as in
+ * LoopTimingStats.
+ */
+public class AllocationStats
+{
+    public static final int kWindowSize = LoopTimingStats.kWindowSize;
+
+    private static final com.sun.management.ThreadMXBean threadBean_ = getThreadBean();
+    private static final long overheadBytes_ = measureOverhead();   // allocated by reading the counter itself
+
+    private final long[] window_ = new long[kWindowSize];
+    private int head_ = 0;
+    private int size_ = 0;
+    private long sum_ = 0;
+
+    private long totalSamples_ = 0;
+    private long totalBytes_ = 0;
+
+    private static com.sun.management.ThreadMXBean getThreadBean()
+    {
+        try
+        {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean))
+                return null;
+
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (!sunBean.isThreadAllocatedMemorySupported())
+                return null;
+            if (!sunBean.isThreadAllocatedMemoryEnabled())
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+            return sunBean;
+        }
+        catch (Throwable t)     // no java.management module, or not permitted
+        {
+            return null;
+        }
+    }
+
+    // the JDK 11 counter allocates a small id array on every read; measure it so it can be subtracted
+    private static long measureOverhead()
+    {
+        if (threadBean_ == null)
+            return 0;
+
+        long overhead = Long.MAX_VALUE;
+        for (int k = 0; k < 10; k++)
+        {
+            long start = getThreadAllocatedBytes();
+            long end = getThreadAllocatedBytes();
+            overhead = Math.min(overhead, end - start);
+        }
+        return Math.max(overhead, 0);
+    }
+
+    public static boolean isSupported() { return threadBean_ != null; }
+
+    /**
+     * Total bytes allocated so far by the calling thread, or -1 if not supported
+     */
+    public static long getThreadAllocatedBytes()
+    {
+        if (threadBean_ == null)
+            return -1;
+        return threadBean_.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Record one onLoop() call, given getThreadAllocatedBytes() before and after it
+     */
+    public synchronized void addSample(long _startBytes, long _endBytes)
+    {
+        long bytes = Math.max(_endBytes - _startBytes - overheadBytes_, 0);
+
+        if (size_ == kWindowSize)
+        {
+            // remove oldest sample from window
+            sum_ -= window_[head_];
+        }
+        else
+        {
+            size_++;
+        }
+
+        window_[head_] = bytes;
+        head_ = (head_ + 1) % kWindowSize;
+        sum_ += bytes;
+
+        totalSamples_++;
+        totalBytes_ += bytes;
+    }
+
+    public synchronized double getMeanBytes()
+    {
+        if (size_ == 0)
+            return 0.0;
+        return (double) sum_ / size_;
+    }
+
+    public synchronized long getMaxBytes()
+    {
+        long max = 0;
+        for (int k = 0; k < size_; k++)
+            max = Math.max(max, window_[k]);
+        return max;
+    }
+
+    public synchronized long getTotalSamples() { return totalSamples_; }
+    public synchronized long getTotalBytes() { return totalBytes_; }
+
+    public synchronized void reset()
+    {
+        head_ = 0;
+        size_ = 0;
+        sum_ = 0;
+        totalSamples_ = 0;
+        totalBytes_ = 0;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        double lifetimeMean = (totalSamples_ == 0) ? 0.0 : (double) totalBytes_ / totalSamples_;
+        return String.format("mean %8.0f  max %8d bytes/cycle, %.0f bytes/cycle over %d cycles",
+                getMeanBytes(), getMaxBytes(), lifetimeMean, totalSamples_);
+    }
+}
@@ -0,0 +1,43 @@
+package frc.robot.loops;
+
+/**
+ * Timing information for one LoopController cycle, passed to
+ * Loop.onLoop(CycleContext).
+ * 
+ * The timestamp is read once per cycle, so every loop in a cycle works from
+ * the same "now" (keeping odometry and vision calculations consistent), and
+ * loops don't each need to read the FPGA clock.
+ */
+public class CycleContext
+{
+    private double timestamp;   // time at start of cycle, in seconds
+    private double dt;          // time since this loop last ran, in seconds
+    private long cycle;         // number of cycles since the LoopController was started
+
+    public CycleContext() 
+    {
+        this(0, 0, 0);
+    }
+
+    public CycleContext(double _timestamp, double _dt, long _cycle)
+    {
+        set(_timestamp, _dt, _cycle);
+    }
+
+    void set(double _timestamp, double _dt, long _cycle)
+    {
+        timestamp = _timestamp;
+        dt = _dt;
+        cycle = _cycle;
+    }
+
+    public double getTimestamp() { return timestamp; }
+    public double getDt() { return dt; }
+    public long getCycle() { return cycle; }
+
+    @Override
+    public String toString()
+    {
+        return String.format("cycle %d, t=%.4f, dt=%.4f", cycle, timestamp, dt);
+    }
+}
@@ -12,7 +12,6 @@ import com.ctre.phoenix.motorcontrol.can.BaseMotorController;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 import com.ctre.phoenix.motorcontrol.can.VictorSPX;
 
-import edu.wpi.first.wpilibj.Timer;
 
 import frc.robot.Constants;
 import frc.robot.command_status.DriveCommand;
@@ -21,6 +20,7 @@ import frc.robot.lib.sensors.BNO055;
 import frc.robot.lib.sensors.GyroBase;
 import frc.robot.lib.sensors.NavX;
 import frc.robot.lib.sensors.Pigeon;
+import frc.robot.lib.util.Clock;
 import frc.robot.subsystems.Drive;
 
 /*
@@ -143,9 +143,10 @@ public class DriveLoop implements Loop
 		lMotorMaster = new TalonSRX(Constants.kLeftMotorMasterTalonId);
 		rMotorMaster = new TalonSRX(Constants.kRightMotorMasterTalonId);
         
-		// Get status at 100Hz (faster than default 50 Hz)
-		lMotorMaster.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, 10, Constants.kTalonTimeoutMs);
-		rMotorMaster.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, 10, Constants.kTalonTimeoutMs);
+		// Get status at 100Hz (faster than default 50 Hz), or as fast as OdometrySampler reads it
+		int feedbackPeriodMs = OdometrySampler.kEnabled ? (int)(1000 * OdometrySampler.kPeriod) : 10;
+		lMotorMaster.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, feedbackPeriodMs, Constants.kTalonTimeoutMs);
+		rMotorMaster.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, feedbackPeriodMs, Constants.kTalonTimeoutMs);
 
 		lMotorMaster.set(ControlMode.PercentOutput, 0.0);
 		rMotorMaster.set(ControlMode.PercentOutput, 0.0);
@@ -259,13 +260,13 @@ public class DriveLoop implements Loop
 		// nothing
 	}
 
-	@Override public void onLoop()
+	@Override public void onLoop(CycleContext _context)
 	{
 		// get status from hardware
 		getStatus();
 		
 		// send new commands to hardware
-		sendCommands();
+		sendCommands(_context.getTimestamp());
 	}
 
 	@Override public void onStop()
@@ -276,7 +277,7 @@ public class DriveLoop implements Loop
 	private void stopMotors()
 	{
 		drive.setCommand(DriveCommand.COAST());		// override any incoming commands 
-		sendCommands();
+		sendCommands(Clock.getInstance().getTime());
 	}
 
 	private void getStatus()
@@ -327,13 +328,12 @@ public class DriveLoop implements Loop
 		}
 	}
 		
-	private void sendCommands()
+	private void sendCommands(double _currentTime)
 	{
 		DriveCommand newCmd = drive.getCommand();
 		
 		// Watchdog timer  
-		double currentTime = Timer.getFPGATimestamp();
-		if (currentTime - newCmd.getCommandTime() > Constants.kDriveWatchdogTimerThreshold)
+		if (_currentTime - newCmd.getCommandTime() > Constants.kDriveWatchdogTimerThreshold)
 		{
 			// Halt robot if new command hasn't been sent in a while
 			stopMotors();
@@ -438,6 +438,14 @@ public class DriveLoop implements Loop
         }
 	}
 
+	// Read odometry sensors directly from the hardware, for OdometrySampler (which runs on its own thread).
+	// Everything else should use DriveState, which is updated once per cycle by getStatus().
+	public double readLeftDistanceInches()      { return encoderUnitsToInches( lMotorMaster.getSelectedSensorPosition( Constants.kTalonPidIdx ) ); }
+	public double readRightDistanceInches()     { return encoderUnitsToInches( rMotorMaster.getSelectedSensorPosition( Constants.kTalonPidIdx ) ); }
+	public double readLeftSpeedInchesPerSec()   { return encoderUnitsPerFrameToInchesPerSecond( lMotorMaster.getSelectedSensorVelocity( Constants.kTalonPidIdx ) ); }
+	public double readRightSpeedInchesPerSec()  { return encoderUnitsPerFrameToInchesPerSecond( rMotorMaster.getSelectedSensorVelocity( Constants.kTalonPidIdx ) ); }
+	public double readHeading()                 { return gyro.getHeadingDeg() * Math.PI / 180.0; }	// radians, same as DriveState.getHeading()
+	
 	// Talon SRX reports position in rotations while in closed-loop Position mode
 	public static double encoderUnitsToInches(int _encoderPosition) {	return (double)_encoderPosition / (double)kQuadEncoderUnitsPerRev  * kDriveWheelCircumInches; }
 	public static int inchesToEncoderUnits(double _inches) { return (int)(_inches / kDriveWheelCircumInches * kQuadEncoderUnitsPerRev); }
@@ -0,0 +1,129 @@
+package frc.robot.loops;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Garbage collection times, collected from the GarbageCollectorMXBean
+ * notifications that HotSpot sends at the end of each collection.
+ *
+ * The time recorded is GcInfo.getDuration(), the elapsed time of the whole
+ * collection.  With a stop-the-world collector (Serial or Parallel) that is
+ * the pause seen by the loops, but with a concurrent collector (G1, CMS) it
+ * includes phases that run alongside the loops, so it overstates the pause.
+ *
+ * Notifications are delivered on a JMX service thread, so recording a collection
+ * never runs on (or blocks) the loop threads.  Two sets of counters are kept:
+ * since the last reset() (for the summary printed when the robot is disabled)
+ * and since the last drainInterval() (for the DataLogger).
+ */
+public class GcCollectionStats
+{
+    // singleton class
+    private static GcCollectionStats instance = null;
+    public static synchronized GcCollectionStats getInstance()
+    {
+        if (instance == null) {
+            instance = new GcCollectionStats();
+        }
+        return instance;
+    }
+
+    private boolean supported_ = false;
+
+    // since reset()
+    private long count_ = 0;
+    private long totalMs_ = 0;
+    private long maxMs_ = 0;
+
+    // since drainInterval()
+    private long intervalCount_ = 0;
+    private long intervalTotalMs_ = 0;
+    private long intervalMaxMs_ = 0;
+
+    private final NotificationListener listener_ = new NotificationListener()
+    {
+        @Override
+        public void handleNotification(Notification _notification, Object _handback)
+        {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(_notification.getType()))
+                return;
+
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) _notification.getUserData());
+            addCollection(info.getGcInfo().getDuration());
+        }
+    };
+
+    private GcCollectionStats()
+    {
+        try
+        {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            {
+                if (gc instanceof NotificationEmitter)
+                {
+                    ((NotificationEmitter) gc).addNotificationListener(listener_, null, null);
+                    supported_ = true;
+                }
+            }
+        }
+        catch (Throwable t)     // no java.management module, or not permitted
+        {
+            System.out.println("GcCollectionStats: GC notifications not available (" + t + ")");
+        }
+    }
+
+    public boolean isSupported() { return supported_; }
+
+    private synchronized void addCollection(long _durationMs)
+    {
+        count_++;
+        totalMs_ += _durationMs;
+        maxMs_ = Math.max(maxMs_, _durationMs);
+
+        intervalCount_++;
+        intervalTotalMs_ += _durationMs;
+        intervalMaxMs_ = Math.max(intervalMaxMs_, _durationMs);
+    }
+
+    public synchronized long getCount() { return count_; }
+    public synchronized long getTotalMs() { return totalMs_; }
+    public synchronized long getMaxMs() { return maxMs_; }
+
+    public synchronized long getIntervalCount() { return intervalCount_; }
+    public synchronized long getIntervalTotalMs() { return intervalTotalMs_; }
+    public synchronized long getIntervalMaxMs() { return intervalMaxMs_; }
+
+    /**
+     * Clear the interval counters, after they have been logged
+     */
+    public synchronized void drainInterval()
+    {
+        intervalCount_ = 0;
+        intervalTotalMs_ = 0;
+        intervalMaxMs_ = 0;
+    }
+
+    public synchronized void reset()
+    {
+        count_ = 0;
+        totalMs_ = 0;
+        maxMs_ = 0;
+        drainInterval();
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        if (!supported_)
+            return "not available";
+        return String.format("%d collections, total %d ms, longest %d ms", count_, totalMs_, maxMs_);
+    }
+}
@@ -1,18 +1,14 @@
 package frc.robot.loops;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
-import edu.wpi.first.wpilibj.Timer;
 import frc.robot.Constants;
+import frc.robot.command_status.FrameTree;
 import frc.robot.command_status.GoalStates;
 import frc.robot.command_status.GoalStates.GoalState;
 import frc.robot.command_status.RobotState;
-import frc.robot.lib.joystick.SelectedJoystick;
 import frc.robot.lib.util.DataLogger;
 import frc.robot.lib.util.Pose;
-import frc.robot.lib.util.Vector2d;
 import frc.robot.vision.GoalTracker;
 import frc.robot.vision.VisionTargetList;
 
@@ -22,6 +18,11 @@ import frc.robot.vision.VisionTargetList;
  * code to determine the best goal to shoot at and prune old Goal tracks is in
  * GoalTracker.java
  * 
+ * Vision targets are added to the GoalTracker once per camera frame.  Cycles
+ * without a new frame are skipped, unless no frame has arrived for
+ * kFrameTimeout seconds, in which case the goals are re-ranked so that old
+ * goals still age out.
+ * 
  * @see GoalTracker.java
  */
 public class GoalStateLoop implements Loop
@@ -37,6 +38,10 @@ public class GoalStateLoop implements Loop
 	GoalStates goalStates = GoalStates.getInstance();
 
 	int currentBestTrackId = -1;
+
+	public static double kFrameTimeout = 0.1;	// seconds without a new frame before goals are re-ranked anyway
+	long prevFrameNumber = 0;
+	double prevUpdateTime = Double.NEGATIVE_INFINITY;
 	
 	enum RangeMethod { DIFFERENTIAL_HEIGHT, TARGET_HEIGHT, TARGET_WIDTH };
 	RangeMethod rangeMethod = RangeMethod.TARGET_HEIGHT; 
@@ -49,15 +54,17 @@ public class GoalStateLoop implements Loop
 
 	GoalStateLoop()
 	{
+		for (int k = 0; k < visionTargets.length; k++)
+			visionTargets[k] = new VisionTargetList.Target();
 	}
 
 	@Override
 	public void onStart() {}
 
 	@Override
-	public void onLoop()
+	public void onLoop(CycleContext _context)
 	{
-		updateGoalLocations();
+		updateGoalLocations(_context.getTimestamp());
 	}
 
 	@Override
@@ -67,21 +74,67 @@ public class GoalStateLoop implements Loop
 	}
 
 	double hAngle, vAngle, hWidth, vWidth, range, horizontalDistance;
-	SelectedJoystick selectedJoystick = SelectedJoystick.getInstance();
+	final double[] robotToTarget = new double[2];	// scratch, reused for each target
+	final double[] fieldToTarget = new double[2];
+	final Pose fieldToRobot = new Pose();			// scratch poses, reused each frame
+	final Pose predictedFieldToShooter = new Pose();
+
+	// targets from the latest frame, and their locations on the field (reused each frame)
+	final VisionTargetList.Target[] visionTargets = new VisionTargetList.Target[VisionTargetList.kMaxTargets];
+	final double[] goalXs = new double[VisionTargetList.kMaxTargets];
+	final double[] goalYs = new double[VisionTargetList.kMaxTargets];
+	final double[] goalRanges = new double[VisionTargetList.kMaxTargets];	// sets measurement noise when GoalTracker filters tracks
+
+	private void updateGoalLocations(double currentTime)
+	{
+		long frameNumber;
+		double imageCaptureTimestamp;
+		FrameTree.Frame cameraFrame;
+		int numTargets;
+		synchronized (visionTargetList)		// read targets, timestamp and camera from the same frame
+		{
+			frameNumber = visionTargetList.getFrameNumber();
+			imageCaptureTimestamp = visionTargetList.getImageCaptureTimestamp();
+			cameraFrame = visionTargetList.getCameraFrame();
+			numTargets = visionTargetList.getTargets(visionTargets);
+		}
+
+		boolean newFrame = (frameNumber != prevFrameNumber);
+		if (!newFrame && (currentTime - prevUpdateTime < kFrameTimeout))
+			return;		// nothing new to track
+		prevFrameNumber = frameNumber;
+		prevUpdateTime = currentTime;
+
+		if (newFrame)
+		{
+			addVisionTargets(currentTime, imageCaptureTimestamp, cameraFrame, numTargets);
+		}
+
+		// Step 3: 	Rank each goal, sort goals by rank
+		//			Store position of goals, calculate range/bearing from shooter to each goal
+        Optional<GoalState> currentTarget = goalStates.getBestVisionTarget();
+		robotState.getPredictedFieldToShooter(Constants.kAutoAimPredictionTime, predictedFieldToShooter);
+
+		goalStates.clear();
+		for (GoalTracker.TrackReport report : goalTracker.getSortedTrackReports(currentTime, currentTarget))
+		{
+			goalStates.add(report.fieldToGoal, predictedFieldToShooter, report.trackId, report.getLatestTimestamp());
+		}		
+	}
 
-	private void updateGoalLocations()
+	private void addVisionTargets(double currentTime, double imageCaptureTimestamp, FrameTree.Frame cameraFrame, int numTargets)
 	{
 		// Step 1: Find location of goals in this image with respect to field
+		// (using the camera that took the image, which may no longer be the selected one)
 		
-		double imageCaptureTimestamp = visionTargetList.getImageCaptureTimestamp();
-		List<VisionTargetList.Target> visionTargets = visionTargetList.getTargets();
-		Pose fieldToCamera = robotState.getFieldToCamera(imageCaptureTimestamp);	// find position of camera back when image was taken (removes latency in processing)
+		robotState.getFieldToVehicle(imageCaptureTimestamp, fieldToRobot);	// find position of robot back when image was taken (removes latency in processing)
+		FrameTree frames = robotState.getFrameTree();
 
 		double kCameraPoseThetaRad = 0.0;	// no variation from PI in Constants
 		double kCameraPitchRad = Constants.kHatchCameraPitchRad;
 		double kCameraPoseZ = Constants.kHatchCameraPoseZ;
 		
-		if (selectedJoystick.getDrivingCargo())
+		if (cameraFrame == FrameTree.Frame.CARGO_CAMERA)
 		{
 			kCameraPoseThetaRad = 0.0;
 			kCameraPitchRad = Constants.kCargoCameraPitchRad;
@@ -89,12 +142,13 @@ public class GoalStateLoop implements Loop
 		}
 
 
-		List<Vector2d> fieldToGoals = new ArrayList<>();
+		int numGoals = 0;
 		
-		if (!(visionTargets == null || visionTargets.isEmpty()))
+		if (numTargets > 0)
 		{
-			for (VisionTargetList.Target target : visionTargets)
+			for (int k = 0; k < numTargets; k++)
 			{
+				VisionTargetList.Target target = visionTargets[k];
 				hAngle = target.getHorizontalAngle() - kCameraPoseThetaRad;	// compensate for camera yaw
 				vAngle = target.getVerticalAngle()   - kCameraPitchRad;		// compensate for camera pitch
 				hWidth = target.getHorizontalWidth();
@@ -112,7 +166,7 @@ public class GoalStateLoop implements Loop
 					
 				case TARGET_WIDTH:
 					// assumes target is horizontally perpendicular to camera axis (not likely unless you attempt to make it so)
-					range = (Constants.kTargetWidthInches/2.0) / Math.tan(hWidth/2.0);
+					range = (target.getWidthInches()/2.0) / Math.tan(hWidth/2.0);
 					horizontalDistance = Math.abs(range * Math.cos(hAngle));
 					break;
 					
@@ -120,16 +174,28 @@ public class GoalStateLoop implements Loop
 				default:
 					// assumes target is vertical
 					// using Law of Sines
-					range = (Constants.kTargetHeightInches/2.0) * Math.sin(Math.PI/2.0-vAngle-vWidth/2.0) / Math.sin(vWidth/2.0);
+					range = (target.getHeightInches()/2.0) * Math.sin(Math.PI/2.0-vAngle-vWidth/2.0) / Math.sin(vWidth/2.0);
 					horizontalDistance = Math.abs(range * Math.cos(vAngle));
 					break;
 				}
 				
 				if (horizontalDistance > 0)
 				{
-					Pose cameraToTarget = new Pose( Vector2d.magnitudeAngle(horizontalDistance, hAngle) );
-					Pose fieldToTarget = cameraToTarget.changeCoordinateSystem( fieldToCamera );
-					fieldToGoals.add( fieldToTarget.getPosition() );
+					double cameraToTargetX = horizontalDistance * Math.cos(hAngle);
+					double cameraToTargetY = horizontalDistance * Math.sin(hAngle);
+					frames.getFieldToPoint(cameraFrame, fieldToRobot, cameraToTargetX, cameraToTargetY, fieldToTarget);
+					goalXs[numGoals] = fieldToTarget[0];
+					goalYs[numGoals] = fieldToTarget[1];
+					goalRanges[numGoals] = horizontalDistance;
+					numGoals++;
+
+					// use sighting to correct drift in robot pose
+					// (primary target only: targets from raw contours may be single strips, offset from the landmark)
+					if (target.isPrimary())
+					{
+						frames.getRobotToPoint(cameraFrame, cameraToTargetX, cameraToTargetY, robotToTarget);
+						robotState.addVisionObservation(imageCaptureTimestamp, robotToTarget[0], robotToTarget[1], horizontalDistance);
+					}
 				}
 			}
 		}
@@ -141,24 +207,8 @@ public class GoalStateLoop implements Loop
 	
 		
 		
-		// Step 2: Add these goals to goal tracker
-		goalTracker.update(imageCaptureTimestamp, fieldToGoals);
-		
-		
-
-		
-		// Step 3: 	Rank each goal, sort goals by rank
-		//			Store position of goals, calculate range/bearing from shooter to each goal
-        double now = Timer.getFPGATimestamp();
-        Optional<GoalState> currentTarget = goalStates.getBestVisionTarget();
-		Pose predictedFieldToShooter = robotState.getPredictedFieldToShooter(Constants.kAutoAimPredictionTime);
-
-		goalStates.clear();
-		for (GoalTracker.TrackReport report : goalTracker.getSortedTrackReports(now, currentTarget))
-		{
-			goalStates.add(report.fieldToGoal, predictedFieldToShooter, report.trackId, report.getLatestTimestamp());
-		}		
-
+		// Step 2: Add these goals to goal tracker (all goals in this frame at once)
+		goalTracker.update(currentTime, imageCaptureTimestamp, goalXs, goalYs, goalRanges, numGoals);
 	}
 	
 	
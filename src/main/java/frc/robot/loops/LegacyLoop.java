@@ -0,0 +1,19 @@
+package frc.robot.loops;
+
+/**
+ * Adapter for loops written before CycleContext: implement onLoop(), and
+ * LoopController calls it through the default onLoop(CycleContext).
+ *
+ * New loops should implement Loop directly, and use the context's timestamp
+ * rather than reading the clock themselves.
+ */
+public interface LegacyLoop extends Loop
+{
+    public void onLoop();
+
+    @Override
+    public default void onLoop(CycleContext _context)
+    {
+        onLoop();
+    }
+}
@@ -9,12 +9,15 @@ package frc.robot.loops;
  * Loops are typically registered to LoopControllers.
  * LoopControllers will call the onStart, onLoop, and onStop 
  * functions of each loop at the appropriate times. 
+ * 
+ * onLoop(CycleContext) is given the cycle's timestamp and dt.  Loops written
+ * before CycleContext implement LegacyLoop instead.
  */
 public interface Loop 
 {
     public void onStart();
 
-    public void onLoop();
+    public void onLoop(CycleContext _context);
 
     public void onStop();
 }
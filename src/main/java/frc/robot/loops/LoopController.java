@@ -1,19 +1,33 @@
 package frc.robot.loops;
 
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 
+import frc.robot.lib.util.Clock;
 import frc.robot.lib.util.CrashTrackingRunnable;
+import frc.robot.lib.util.DataLogger;
 import frc.robot.Constants;
 
-import edu.wpi.first.wpilibj.Notifier;
-import edu.wpi.first.wpilibj.Timer;
-
 /**
  * This code runs all of the robot's loops. Loop objects are stored in a List
  * object. They are started when the robot powers up and stopped after the
  * match.
+ * 
+ * Loops run every kPeriod by default.  Slower loops can be registered with a
+ * divisor (or period) so they run every N cycles.  Each slower loop is given a
+ * phase offset that places it in the least loaded cycles, so that the slow
+ * loops are staggered rather than all landing on the same cycle.
+ * 
+ * In SERIAL mode, loops run one after another in the order they were
+ * registered.  In PARALLEL mode, loops run on the Notifier thread plus a small
+ * pool of worker threads, and a loop only waits for the loops it was declared
+ * to depend on (see addDependencies()).  All loops finish before the cycle ends.
+ * 
+ * Besides timing, the bytes each loop allocates per cycle are measured (see
+ * AllocationStats), along with garbage collection times (see GcCollectionStats).
+ * Both are logged, and summarized when the robot is disabled.
  */
 public class LoopController 
 {
@@ -21,14 +35,82 @@ public class LoopController
 
     private boolean running_;
 
-    private final Notifier notifier_;	// the Notifier will run the function runCrashTracked() with a period of kPeriod
+    private final Clock.PeriodicTask notifier_;	// the Notifier will run the function runCrashTracked() with a period of kPeriod
     
-    private final List<Loop> loops_;
+    private final List<LoopEntry> loops_;
+    private volatile LoopEntry[] entries_ = new LoopEntry[0];     // copy of loops_ for logging and reports, which must not take taskRunningLock_
     private final Object taskRunningLock_ = new Object();
     private double prev_time_ = 0;
 	protected double dt_;
-   
-    
+
+    public enum ExecutionMode { SERIAL, PARALLEL };
+    private volatile ExecutionMode executionMode_ = ExecutionMode.SERIAL;
+
+    // timing statistics
+    private final long kPeriodNs = (long) (kPeriod * 1e9);
+    private final LoopTimingStats serialCycleStats_ = new LoopTimingStats(kPeriodNs);      // time to run all loops, SERIAL mode
+    private final LoopTimingStats parallelCycleStats_ = new LoopTimingStats(kPeriodNs);    // time to run all loops, PARALLEL mode
+    private final LoopTimingStats jitterStats_ = new LoopTimingStats(kPeriodNs);   // |actual period - kPeriod|
+    private long prev_cycle_start_ns_ = 0;
+
+    // allocation statistics
+    public static boolean kMeasureAllocation = true;    // read the per-thread allocation counter around each onLoop()
+    private final boolean measureAllocation_ = kMeasureAllocation && AllocationStats.isSupported();
+    private final GcCollectionStats gcStats_ = GcCollectionStats.getInstance();
+
+    // multi-rate scheduling
+    public static final int kMaxHyperperiod = 1000;    // cycles considered when staggering loops
+    private long cycle_ = 0;
+
+    // parallel execution
+    public static final int kNumWorkerThreads = 1;     // the Notifier thread also runs loops, so this uses both roboRIO cores
+    private final Object scheduleLock_ = new Object();
+    private final ArrayDeque<LoopEntry> readyQueue_ = new ArrayDeque<>();  // loops whose dependencies have finished this cycle
+    private int pending_ = 0;                           // loops not yet finished this cycle
+    private int inFlight_ = 0;                          // loops taken from readyQueue_ and not yet finished
+    private boolean aborted_ = false;                   // cycle abandoned after an interrupt: release no more loops
+    private Throwable loopError_ = null;                // first exception thrown by a loop this cycle
+    private final List<Thread> workers_ = new ArrayList<>();
+
+    /**
+     * A registered Loop, along with its timing statistics
+     */
+    private static class LoopEntry
+    {
+        final Loop loop;
+        final String name;
+        final int divisor;     // run every divisor cycles
+        final int offset;      // ...on cycles where (cycle % divisor) == offset
+        final LoopTimingStats stats;
+        final AllocationStats allocation = new AllocationStats();
+        final List<LoopEntry> dependencies = new ArrayList<>();    // loops that must finish before this one starts
+        final List<LoopEntry> dependents = new ArrayList<>();      // loops that wait for this one
+        final CycleContext context = new CycleContext();           // timing passed to onLoop()
+        double prevTimestamp;                                      // timestamp of the last cycle this loop ran
+        boolean active;                                            // scheduled to run this cycle
+        int remainingDependencies;                                 // active dependencies not yet finished this cycle
+        final int minChannel, meanChannel, p99Channel, maxChannel, overrunChannel;   // DataLogger channels
+        final int allocMeanChannel, allocMaxChannel;
+
+        LoopEntry(Loop _loop, int _divisor, int _offset, long _overrunThresholdNs, DataLogger _logger)
+        {
+            loop = _loop;
+            divisor = _divisor;
+            offset = _offset;
+            name = getLoopName(_loop);
+            stats = new LoopTimingStats(_overrunThresholdNs);
+
+            String prefix = "LoopController/" + name;
+            minChannel     = _logger.addDoubleChannel(prefix + "/minMs");
+            meanChannel    = _logger.addDoubleChannel(prefix + "/meanMs");
+            p99Channel     = _logger.addDoubleChannel(prefix + "/p99Ms");
+            maxChannel     = _logger.addDoubleChannel(prefix + "/maxMs");
+            overrunChannel = _logger.addIntChannel(prefix + "/overruns");
+            allocMeanChannel = _logger.addDoubleChannel(prefix + "/allocBytesPerCycle");
+            allocMaxChannel  = _logger.addIntChannel(prefix + "/maxAllocBytes");
+        }
+    }
+
     private final CrashTrackingRunnable runnable_ = new CrashTrackingRunnable() 
     {
         @Override
@@ -39,11 +121,27 @@ public class LoopController
             {
                 if (running_) 
                 {
-                    double curr_time = Timer.getFPGATimestamp();
-                    for (Loop loop : loops_) 
+                    long cycle_start_ns = System.nanoTime();
+                    if (prev_cycle_start_ns_ != 0)
+                    {
+                        jitterStats_.addSample(Math.abs((cycle_start_ns - prev_cycle_start_ns_) - kPeriodNs));
+                    }
+                    prev_cycle_start_ns_ = cycle_start_ns;
+
+                    double curr_time = Clock.getInstance().getTime();
+                    scheduleLoops(curr_time);
+                    if (executionMode_ == ExecutionMode.PARALLEL)
                     {
-                        loop.onLoop();
+                        runParallel();
+                        parallelCycleStats_.addSample(System.nanoTime() - cycle_start_ns);
                     }
+                    else
+                    {
+                        runSerial();
+                        serialCycleStats_.addSample(System.nanoTime() - cycle_start_ns);
+                    }
+                    cycle_++;
+
                     dt_ = curr_time - prev_time_;
                     prev_time_ = curr_time;
                 }
@@ -51,23 +149,356 @@ public class LoopController
         }
     };
 
+
+    // mark the loops that run this cycle, and give each the cycle's timestamp
+    private void scheduleLoops(double _currentTime)
+    {
+        for (int k = 0; k < loops_.size(); k++)
+        {
+            LoopEntry entry = loops_.get(k);
+            entry.active = (cycle_ % entry.divisor) == entry.offset;
+            if (entry.active)
+            {
+                entry.context.set(_currentTime, _currentTime - entry.prevTimestamp, cycle_);
+                entry.prevTimestamp = _currentTime;
+            }
+        }
+    }
+
+    // run loops in registration order on the Notifier thread
+    private void runSerial()
+    {
+        for (int k = 0; k < loops_.size(); k++) 
+        {
+            LoopEntry entry = loops_.get(k);
+            if (entry.active)
+            {
+                long start_bytes = measureAllocation_ ? AllocationStats.getThreadAllocatedBytes() : 0;
+                long start_ns = System.nanoTime();
+                entry.loop.onLoop(entry.context);
+                entry.stats.addSample(System.nanoTime() - start_ns);
+                if (measureAllocation_)
+                    entry.allocation.addSample(start_bytes, AllocationStats.getThreadAllocatedBytes());
+            }
+        }
+    }
+
+    // run loops on the Notifier thread and worker threads, in dependency order
+    private void runParallel()
+    {
+        startWorkers();
+
+        synchronized (scheduleLock_)
+        {
+            pending_ = 0;
+            loopError_ = null;
+            for (int k = 0; k < loops_.size(); k++)
+            {
+                if (loops_.get(k).active)
+                    pending_++;
+            }
+            for (int k = 0; k < loops_.size(); k++)
+            {
+                LoopEntry entry = loops_.get(k);
+                if (!entry.active)
+                    continue;
+
+                // dependencies that are not scheduled this cycle are already satisfied
+                entry.remainingDependencies = 0;
+                for (int d = 0; d < entry.dependencies.size(); d++)
+                    if (entry.dependencies.get(d).active)
+                        entry.remainingDependencies++;
+
+                if (entry.remainingDependencies == 0)
+                    readyQueue_.add(entry);
+            }
+            scheduleLock_.notifyAll();
+        }
+
+        // help the workers until every loop has finished
+        try
+        {
+            while (true)
+            {
+                LoopEntry entry;
+                synchronized (scheduleLock_)
+                {
+                    while (pending_ > 0 && readyQueue_.isEmpty())
+                        scheduleLock_.wait();
+                    if (pending_ == 0)
+                        break;
+                    entry = readyQueue_.poll();
+                    inFlight_++;
+                }
+                runEntry(entry);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            abortCycle();
+        }
+
+        // report loop crashes from the Notifier thread, as in SERIAL mode
+        Throwable error;
+        synchronized (scheduleLock_)
+        {
+            error = loopError_;
+            loopError_ = null;
+        }
+        if (error instanceof Error)
+            throw (Error) error;
+        if (error != null)
+            throw (RuntimeException) error;
+    }
+
+    // run one loop, then release any loops that were waiting for it
+    // (allocation is read on whichever thread runs the loop, so it is per-loop in PARALLEL mode too)
+    private void runEntry(LoopEntry _entry)
+    {
+        long start_bytes = measureAllocation_ ? AllocationStats.getThreadAllocatedBytes() : 0;
+        long start_ns = System.nanoTime();
+        try
+        {
+            _entry.loop.onLoop(_entry.context);
+        }
+        catch (Throwable t)
+        {
+            synchronized (scheduleLock_)
+            {
+                if (loopError_ == null)
+                    loopError_ = t;
+            }
+        }
+        _entry.stats.addSample(System.nanoTime() - start_ns);
+        if (measureAllocation_)
+            _entry.allocation.addSample(start_bytes, AllocationStats.getThreadAllocatedBytes());
+
+        synchronized (scheduleLock_)
+        {
+            if (!aborted_)
+            {
+                for (int k = 0; k < _entry.dependents.size(); k++)
+                {
+                    LoopEntry dependent = _entry.dependents.get(k);
+                    if (dependent.active && --dependent.remainingDependencies == 0)
+                        readyQueue_.add(dependent);
+                }
+            }
+            pending_--;
+            inFlight_--;
+            scheduleLock_.notifyAll();
+        }
+    }
+
+    // The Notifier thread was interrupted while waiting for loops.  Start no more loops this
+    // cycle, but wait for the ones already running on workers (the next cycle reuses their
+    // entries), then leave the thread's interrupt status set for whoever interrupted it.
+    private void abortCycle()
+    {
+        synchronized (scheduleLock_)
+        {
+            aborted_ = true;
+            readyQueue_.clear();
+            while (inFlight_ > 0)
+            {
+                try
+                {
+                    scheduleLock_.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    // already aborting; the status is restored below
+                }
+            }
+            pending_ = 0;
+            aborted_ = false;
+        }
+        Thread.currentThread().interrupt();
+    }
+
+    // workers are started on first use of PARALLEL mode
+    private void startWorkers()
+    {
+        synchronized (workers_)
+        {
+        while (workers_.size() < kNumWorkerThreads)
+        {
+            Thread worker = new Thread(new CrashTrackingRunnable()
+            {
+                @Override
+                public void runCrashTracked()
+                {
+                    try
+                    {
+                        while (true)
+                        {
+                            LoopEntry entry;
+                            synchronized (scheduleLock_)
+                            {
+                                while (readyQueue_.isEmpty())
+                                    scheduleLock_.wait();
+                                entry = readyQueue_.poll();
+                                inFlight_++;
+                            }
+                            runEntry(entry);
+                        }
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // exit; the Notifier thread runs any remaining loops itself
+                        System.out.println(Thread.currentThread().getName() + " interrupted, stopping");
+                    }
+                }
+            }, "LoopWorker" + workers_.size());
+            worker.setDaemon(true);
+            worker.setPriority(Thread.MAX_PRIORITY);
+            worker.start();
+            workers_.add(worker);
+        }
+        }
+    }
+
     
     public LoopController() 
     {
-        notifier_ = new Notifier(runnable_);
+        // the Notifier comes from the Clock, so install a SimulatedClock before creating a LoopController to run off-robot
+        notifier_ = Clock.getInstance().createPeriodicTask(runnable_);
         running_ = false;
         loops_ = new ArrayList<>();
     }
 
+    /**
+     * Register a loop to run every cycle (every kPeriod seconds)
+     */
     public synchronized void register(Loop loop) 
     {
+        register(loop, 1);
+    }
+
+    /**
+     * Register a loop to run approximately every _period seconds.  The period
+     * is rounded to the nearest multiple of kPeriod.
+     */
+    public synchronized void register(Loop loop, double _period) 
+    {
+        register(loop, (int) Math.max(1, Math.round(_period / kPeriod)));
+    }
+
+    /**
+     * Register a loop to run once every _divisor cycles
+     */
+    public synchronized void register(Loop loop, int _divisor) 
+    {
+        int divisor = Math.max(1, _divisor);
+
     	// lock during access to loop_ to avoid corruption from multiple threads
         synchronized (taskRunningLock_) 
         {
-            loops_.add(loop);
+            int offset = findLeastLoadedOffset(divisor);
+            loops_.add(new LoopEntry(loop, divisor, offset, kPeriodNs, logger));
+            entries_ = loops_.toArray(new LoopEntry[loops_.size()]);
+        }
+    }
+
+    /**
+     * Find the phase offset for a loop with the given divisor that minimizes
+     * the number of loops run in the busiest of the cycles it will run in
+     */
+    private int findLeastLoadedOffset(int _divisor)
+    {
+        if (_divisor == 1)
+            return 0;
+
+        // the schedule repeats every lcm(all divisors) cycles
+        long hyperperiod = _divisor;
+        for (LoopEntry entry : loops_)
+            hyperperiod = lcm(hyperperiod, entry.divisor);
+        hyperperiod = Math.min(hyperperiod, kMaxHyperperiod);
+
+        int[] load = new int[(int) hyperperiod];
+        for (LoopEntry entry : loops_)
+            for (int c = entry.offset; c < hyperperiod; c += entry.divisor)
+                load[c]++;
+
+        int bestOffset = 0;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int offset = 0; offset < _divisor; offset++)
+        {
+            int maxLoad = 0;
+            for (int c = offset; c < hyperperiod; c += _divisor)
+                maxLoad = Math.max(maxLoad, load[c]);
+
+            if (maxLoad < bestLoad)
+            {
+                bestLoad = maxLoad;
+                bestOffset = offset;
+            }
+        }
+        return bestOffset;
+    }
+
+    private static long lcm(long _a, long _b)
+    {
+        long a = _a, b = _b;
+        while (b != 0)
+        {
+            long t = a % b;
+            a = b;
+            b = t;
         }
+        return (_a / a) * _b;
     }
 
+    /**
+     * Declare that _loop must not start until each of _dependencies has finished
+     * in the same cycle.  Used in PARALLEL mode only; in SERIAL mode loops run in
+     * registration order, so register dependencies first.
+     */
+    public synchronized void addDependencies(Loop _loop, Loop... _dependencies)
+    {
+        synchronized (taskRunningLock_)
+        {
+            LoopEntry entry = findEntry(_loop);
+            for (Loop dependency : _dependencies)
+            {
+                LoopEntry dependencyEntry = findEntry(dependency);
+                if (dependencyEntry == entry || dependsOn(dependencyEntry, entry))
+                {
+                    throw new IllegalArgumentException("Circular loop dependency: " + entry.name + " <-> " + dependencyEntry.name);
+                }
+                if (!entry.dependencies.contains(dependencyEntry))
+                {
+                    entry.dependencies.add(dependencyEntry);
+                    dependencyEntry.dependents.add(entry);
+                }
+            }
+        }
+    }
+
+    private LoopEntry findEntry(Loop _loop)
+    {
+        for (LoopEntry entry : loops_)
+        {
+            if (entry.loop == _loop)
+                return entry;
+        }
+        throw new IllegalArgumentException("Loop not registered: " + getLoopName(_loop));
+    }
+
+    // true if _entry waits (directly or indirectly) for _other
+    private static boolean dependsOn(LoopEntry _entry, LoopEntry _other)
+    {
+        for (LoopEntry dependency : _entry.dependencies)
+        {
+            if (dependency == _other || dependsOn(dependency, _other))
+                return true;
+        }
+        return false;
+    }
+
+    public void setExecutionMode(ExecutionMode _mode) { executionMode_ = _mode; }
+    public ExecutionMode getExecutionMode() { return executionMode_; }
+
     public synchronized void start() 
     {
         if (!running_) 
@@ -76,11 +507,14 @@ public class LoopController
         	// lock during access to loop_ to avoid corruption from multiple threads
             synchronized (taskRunningLock_) 
             {
-                prev_time_ = Timer.getFPGATimestamp();
-                for (Loop loop : loops_) 
+                prev_time_ = Clock.getInstance().getTime();
+                prev_cycle_start_ns_ = 0;
+                cycle_ = 0;
+                for (LoopEntry entry : loops_) 
                 {
-//                    System.out.println("Starting " + loop);
-                    loop.onStart();
+                    entry.prevTimestamp = prev_time_;
+//                    System.out.println("Starting " + entry.name);
+                    entry.loop.onStart();
                 }
                 running_ = true;
             }
@@ -111,17 +545,141 @@ public class LoopController
         {
             System.out.println("Stopping loops");
             notifier_.stop();
+            System.out.print(getTimingReport());
         	// lock during access to loop_ to avoid corruption from multiple threads
             synchronized (taskRunningLock_) 
             {
                 running_ = false;
-                for (Loop loop : loops_) 
+                for (LoopEntry entry : loops_) 
                 {
-//                    System.out.println("Stopping " + loop);
-                    loop.onStop();
+//                    System.out.println("Stopping " + entry.name);
+                    entry.loop.onStop();
                 }
             }
         }
     }
 
+
+    // name used for logging (anonymous loops, such as Drive's velocity loop, use their enclosing class name)
+    private static String getLoopName(Loop _loop)
+    {
+        String name = _loop.getClass().getSimpleName();
+        if (name.isEmpty())
+        {
+            name = _loop.getClass().getName();
+            name = name.substring(name.lastIndexOf('.') + 1);
+        }
+        return name;
+    }
+
+    public double getDt() { return dt_; }
+    public LoopTimingStats getCycleStats(ExecutionMode _mode) { return (_mode == ExecutionMode.PARALLEL ? parallelCycleStats_ : serialCycleStats_); }
+    public LoopTimingStats getJitterStats() { return jitterStats_; }
+
+    /**
+     * Compares cycle times of the SERIAL and PARALLEL execution modes (over the
+     * cycles each mode was most recently used), followed by per-loop timing
+     */
+    public String getTimingReport()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("LoopController timing (mode: %s)%n", executionMode_));
+        sb.append(String.format("  %-20s %s%n", "SERIAL cycle", serialCycleStats_));
+        sb.append(String.format("  %-20s %s%n", "PARALLEL cycle", parallelCycleStats_));
+        sb.append(String.format("  %-20s %s%n", "period jitter", jitterStats_));
+        for (LoopEntry entry : entries_)
+        {
+            sb.append(String.format("  %-20s %s%n", entry.name, entry.stats));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Bytes allocated per cycle by each loop, and garbage collection times,
+     * since the last resetAllocationStats()
+     */
+    public String getAllocationReport()
+    {
+        StringBuilder sb = new StringBuilder();
+        if (!measureAllocation_)
+            sb.append(String.format("LoopController allocation: not measured%n"));
+        else
+        {
+            sb.append(String.format("LoopController allocation%n"));
+            for (LoopEntry entry : entries_)
+            {
+                sb.append(String.format("  %-20s %s%n", entry.name, entry.allocation));
+            }
+        }
+        sb.append(String.format("  %-20s %s%n", "GC collections", gcStats_));
+        return sb.toString();
+    }
+
+    public void resetAllocationStats()
+    {
+        for (LoopEntry entry : entries_)
+            entry.allocation.reset();
+        gcStats_.reset();
+    }
+
+
+
+    private final DataLogger logger = new DataLogger()
+    {
+        final int executionModeChannel   = addStringChannel("LoopController/executionMode");
+        final int serialMeanChannel      = addDoubleChannel("LoopController/serial/meanMs");
+        final int serialP99Channel       = addDoubleChannel("LoopController/serial/p99Ms");
+        final int serialMaxChannel       = addDoubleChannel("LoopController/serial/maxMs");
+        final int serialOverrunChannel   = addIntChannel("LoopController/serial/overruns");
+        final int parallelMeanChannel    = addDoubleChannel("LoopController/parallel/meanMs");
+        final int parallelP99Channel     = addDoubleChannel("LoopController/parallel/p99Ms");
+        final int parallelMaxChannel     = addDoubleChannel("LoopController/parallel/maxMs");
+        final int parallelOverrunChannel = addIntChannel("LoopController/parallel/overruns");
+        final int jitterMeanChannel      = addDoubleChannel("LoopController/jitter/meanMs");
+        final int jitterMaxChannel       = addDoubleChannel("LoopController/jitter/maxMs");
+        final int gcCountChannel         = addIntChannel("LoopController/gc/count");
+        final int gcCollectionChannel    = addDoubleChannel("LoopController/gc/collectionMs");
+        final int gcMaxCollectionChannel = addDoubleChannel("LoopController/gc/maxCollectionMs");
+
+        @Override
+        public void log()
+        {
+            set(executionModeChannel,   executionMode_.toString());
+            set(serialMeanChannel,      serialCycleStats_.getMeanMs());
+            set(serialP99Channel,       serialCycleStats_.getP99Ms());
+            set(serialMaxChannel,       serialCycleStats_.getMaxMs());
+            set(serialOverrunChannel,   (int) serialCycleStats_.getOverruns());
+            set(parallelMeanChannel,    parallelCycleStats_.getMeanMs());
+            set(parallelP99Channel,     parallelCycleStats_.getP99Ms());
+            set(parallelMaxChannel,     parallelCycleStats_.getMaxMs());
+            set(parallelOverrunChannel, (int) parallelCycleStats_.getOverruns());
+            set(jitterMeanChannel,      jitterStats_.getMeanMs());
+            set(jitterMaxChannel,       jitterStats_.getMaxMs());
+            synchronized (gcStats_)
+            {
+                // collections since the last log
+                set(gcCountChannel,     (int) gcStats_.getIntervalCount());
+                set(gcCollectionChannel,    gcStats_.getIntervalTotalMs());
+                set(gcMaxCollectionChannel, gcStats_.getIntervalMaxMs());
+                gcStats_.drainInterval();
+            }
+
+            // the stats objects each take their own (short) lock, so logging never holds up a cycle
+            LoopEntry[] entries = entries_;
+            for (int k = 0; k < entries.length; k++)
+            {
+                LoopEntry entry = entries[k];
+                set(entry.minChannel,     entry.stats.getMinMs());
+                set(entry.meanChannel,    entry.stats.getMeanMs());
+                set(entry.p99Channel,     entry.stats.getP99Ms());
+                set(entry.maxChannel,     entry.stats.getMaxMs());
+                set(entry.overrunChannel, (int) entry.stats.getOverruns());
+                set(entry.allocMeanChannel, entry.allocation.getMeanBytes());
+                set(entry.allocMaxChannel,  (int) Math.min(entry.allocation.getMaxBytes(), Integer.MAX_VALUE));
+            }
+        }
+    };
+
+    public DataLogger getLogger() { return logger; }
+
 }
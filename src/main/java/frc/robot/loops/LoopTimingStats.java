@@ -0,0 +1,137 @@
+package frc.robot.loops;
+
+/**
+ * Rolling timing statistics for a periodically measured duration, such as the
+ * time spent in a Loop's onLoop() or the period of the LoopController.
+ *
+ * The last kWindowSize samples are kept in a circular buffer, along with a
+ * fixed-bin histogram of the same samples, so that min/mean/percentile/max can
+ * be reported without sorting or allocating.  Adding a sample is O(1) and
+ * cheap enough to leave on during matches.
+ */
+public class LoopTimingStats
+{
+    public static final int  kWindowSize = 500;         // samples (5 seconds at 100 Hz)
+    public static final long kBinWidthNs = 50000;       // 50 us histogram resolution
+    public static final int  kNumBins    = 400;         // covers 0-20 ms, last bin holds anything longer
+
+    private final long[] window_ = new long[kWindowSize];
+    private final int[] histogram_ = new int[kNumBins];
+    private int head_ = 0;
+    private int size_ = 0;
+    private long sum_ = 0;
+
+    private final long overrunThresholdNs_;
+    private long totalSamples_ = 0;
+    private long overruns_ = 0;
+
+    /**
+     * @param _overrunThresholdNs samples longer than this are counted as overruns
+     */
+    public LoopTimingStats(long _overrunThresholdNs)
+    {
+        overrunThresholdNs_ = _overrunThresholdNs;
+    }
+
+    public synchronized void addSample(long _durationNs)
+    {
+        long duration = Math.max(_durationNs, 0);
+
+        if (size_ == kWindowSize)
+        {
+            // remove oldest sample from window
+            long oldest = window_[head_];
+            sum_ -= oldest;
+            histogram_[getBin(oldest)]--;
+        }
+        else
+        {
+            size_++;
+        }
+
+        window_[head_] = duration;
+        head_ = (head_ + 1) % kWindowSize;
+        sum_ += duration;
+        histogram_[getBin(duration)]++;
+
+        totalSamples_++;
+        if (duration > overrunThresholdNs_)
+        {
+            overruns_++;
+        }
+    }
+
+    private static int getBin(long _durationNs)
+    {
+        return (int) Math.min(_durationNs / kBinWidthNs, kNumBins - 1);
+    }
+
+    public synchronized double getMinMs()
+    {
+        if (size_ == 0)
+            return 0.0;
+
+        long min = Long.MAX_VALUE;
+        for (int k = 0; k < size_; k++)
+            min = Math.min(min, window_[k]);
+        return min * 1e-6;
+    }
+
+    public synchronized double getMaxMs()
+    {
+        long max = 0;
+        for (int k = 0; k < size_; k++)
+            max = Math.max(max, window_[k]);
+        return max * 1e-6;
+    }
+
+    public synchronized double getMeanMs()
+    {
+        if (size_ == 0)
+            return 0.0;
+        return ((double) sum_ / size_) * 1e-6;
+    }
+
+    /**
+     * Returns the upper edge of the histogram bin containing the given fraction
+     * of samples (e.g. 0.99 for p99), within kBinWidthNs of the true value
+     */
+    public synchronized double getPercentileMs(double _fraction)
+    {
+        if (size_ == 0)
+            return 0.0;
+
+        int target = (int) Math.ceil(_fraction * size_);
+        int count = 0;
+        for (int bin = 0; bin < kNumBins - 1; bin++)
+        {
+            count += histogram_[bin];
+            if (count >= target)
+                return Math.min(((bin + 1) * kBinWidthNs) * 1e-6, getMaxMs());
+        }
+        return getMaxMs();  // in overflow bin
+    }
+
+    public synchronized double getP99Ms() { return getPercentileMs(0.99); }
+
+    public synchronized long getTotalSamples() { return totalSamples_; }
+    public synchronized long getOverruns() { return overruns_; }
+
+    public synchronized void reset()
+    {
+        for (int k = 0; k < kNumBins; k++)
+            histogram_[k] = 0;
+        head_ = 0;
+        size_ = 0;
+        sum_ = 0;
+        totalSamples_ = 0;
+        overruns_ = 0;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("min %6.3f  mean %6.3f  p99 %6.3f  max %6.3f ms, overruns %d/%d",
+                getMinMs(), getMeanMs(), getP99Ms(), getMaxMs(), overruns_, totalSamples_);
+    }
+}
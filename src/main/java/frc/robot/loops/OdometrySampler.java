@@ -0,0 +1,126 @@
+package frc.robot.loops;
+
+import frc.robot.command_status.RobotState;
+import frc.robot.lib.util.Clock;
+import frc.robot.lib.util.CrashTrackingRunnable;
+import frc.robot.lib.util.DataLogger;
+
+/**
+ * Optional high-rate odometry.  When enabled, the encoders and gyro are read
+ * directly from the hardware on a dedicated Notifier every kPeriod seconds,
+ * and each sample is integrated into RobotState with its own timestamp.
+ * RobotStateLoop then no longer integrates odometry, and the other loops just
+ * read the latest pose from RobotState.
+ *
+ * Sampling faster than the LoopController tracks fast turns more closely,
+ * and gives vision latency compensation a denser pose history to
+ * interpolate.  The Talon feedback status frame is sped up to match (see
+ * DriveLoop).
+ */
+public class OdometrySampler
+{
+	// singleton class
+	private static OdometrySampler instance = null;
+	public static OdometrySampler getInstance()
+	{
+		if (instance == null) {
+			instance = new OdometrySampler();
+		}
+		return instance;
+	}
+
+	public static boolean kEnabled = false;		// set to true to sample odometry on its own thread
+	public static double kPeriod = 0.005;		// 200 Hz
+
+	private final Clock.PeriodicTask notifier;
+	private boolean running = false;
+
+	private final DriveLoop driveLoop;
+	private final RobotState robotState;
+
+	// timing statistics (written by Notifier thread, read by logger)
+	private volatile long numSamples = 0;
+	private volatile double maxJitter = 0;		// largest |actual period - kPeriod| since last logged
+	private double prevTime = 0;
+
+	private final CrashTrackingRunnable runnable = new CrashTrackingRunnable()
+	{
+		boolean priorityRaised = false;
+
+		@Override
+		public void runCrashTracked()
+		{
+			if (!priorityRaised)
+			{
+				Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
+				priorityRaised = true;
+			}
+			sample();
+		}
+	};
+
+	OdometrySampler()
+	{
+		driveLoop = DriveLoop.getInstance();
+		robotState = RobotState.getInstance();
+		notifier = Clock.getInstance().createPeriodicTask(runnable);
+	}
+
+	public synchronized boolean isRunning() { return running; }
+
+	public synchronized void start()
+	{
+		if (running)
+			return;
+
+		robotState.setPrevEncoderDistance(driveLoop.readLeftDistanceInches(), driveLoop.readRightDistanceInches());
+		prevTime = Clock.getInstance().getTime();
+		running = true;
+		notifier.startPeriodic(kPeriod);
+	}
+
+	public synchronized void stop()
+	{
+		if (!running)
+			return;
+
+		notifier.stop();
+		running = false;
+	}
+
+	private void sample()
+	{
+		double time      = Clock.getInstance().getTime();
+		double lDistance = driveLoop.readLeftDistanceInches();
+		double rDistance = driveLoop.readRightDistanceInches();
+		double lSpeed    = driveLoop.readLeftSpeedInchesPerSec();
+		double rSpeed    = driveLoop.readRightSpeedInchesPerSec();
+		double gyroAngle = driveLoop.readHeading();
+
+		robotState.generateOdometryFromSensors(time, lDistance, rDistance, lSpeed, rSpeed, gyroAngle);
+
+		double jitter = Math.abs((time - prevTime) - kPeriod);
+		if (numSamples > 0 && jitter > maxJitter)
+			maxJitter = jitter;
+		prevTime = time;
+		numSamples++;
+	}
+
+
+
+	private final DataLogger logger = new DataLogger()
+	{
+		final int numSamplesChannel = addIntChannel("OdometrySampler/numSamples");
+		final int maxJitterChannel  = addDoubleChannel("OdometrySampler/maxJitterMs");
+
+		@Override
+		public void log()
+		{
+			set(numSamplesChannel, (int)numSamples);
+			set(maxJitterChannel, 1000 * maxJitter);
+			maxJitter = 0;
+		}
+	};
+
+	public DataLogger getLogger() { return logger; }
+}
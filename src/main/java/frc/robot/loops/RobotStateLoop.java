@@ -4,8 +4,6 @@ package frc.robot.loops;
 import frc.robot.command_status.DriveState;
 import frc.robot.command_status.RobotState;
 
-import edu.wpi.first.wpilibj.Timer;
-
 /**
  * Periodically estimates the state of the robot using the robot's distance
  * traveled (compares two waypoints), gyroscope orientation, and velocity, among
@@ -37,16 +35,24 @@ public class RobotStateLoop implements Loop
     @Override
     public void onStart() 
     {
+    	if (OdometrySampler.kEnabled)
+    	{
+    		OdometrySampler.getInstance().start();	// odometry is integrated on the sampler's own thread
+    		return;
+    	}
     	robotState.setPrevEncoderDistance(driveState.getLeftDistanceInches(), driveState.getRightDistanceInches());
     }
 
     @Override
-    public void onLoop() 
+    public void onLoop(CycleContext _context) 
     {
+    	if (OdometrySampler.kEnabled)
+    		return;
+
     	// the following DriveState elements are set during DriveLoop, called just previous to RobotStateLoop,
     	// and in the same LoopController thread
     	
-        double time      = Timer.getFPGATimestamp();
+        double time      = _context.getTimestamp();
         double lDistance = driveState.getLeftDistanceInches();
         double rDistance = driveState.getRightDistanceInches();
         double lSpeed    = driveState.getLeftSpeedInchesPerSec();
@@ -59,7 +65,8 @@ public class RobotStateLoop implements Loop
     @Override
     public void onStop() 
     {
-        // no-op
+    	if (OdometrySampler.kEnabled)
+    		OdometrySampler.getInstance().stop();
     }
 
 }
@@ -7,6 +7,7 @@ import frc.robot.lib.util.DataLogger;
 import frc.robot.lib.util.Kinematics.WheelSpeed;
 import frc.robot.lib.util.PIDController;
 import frc.robot.loops.DriveLoop;
+import frc.robot.loops.LegacyLoop;
 import frc.robot.loops.Loop;
 
 /**
@@ -57,7 +58,7 @@ public class Drive extends Subsystem
 	 * Loop to tend to velocity control loops, where Talon SRXs are monitoring the wheel velocities
 	 */
 	// TODO: move into VelocityHeading class
-    private final Loop velocityControlLoop = new Loop() 
+    private final Loop velocityControlLoop = new LegacyLoop() 
     {
         @Override
         public void onStart()
@@ -1,14 +1,8 @@
 package frc.robot.vision;
 
-import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
-
 import frc.robot.lib.util.Vector2d;
 import frc.robot.Constants;
 
-import edu.wpi.first.wpilibj.Timer;
-
 /**
  * A class that is used to keep track of all goals detected by the vision
  * system. As goals are detected/not detected anymore by the vision system,
@@ -17,88 +11,175 @@ import edu.wpi.first.wpilibj.Timer;
  * This helps in the goal ranking process that determines which goal to fire
  * into, and helps to smooth measurements of the goal's location over time.
  * 
+ * Observations are kept in a fixed-size circular buffer, oldest first, along
+ * with running sums of their positions, so adding, pruning and smoothing cost
+ * O(1) per observation and do not allocate.  Observations are expected in
+ * roughly increasing timestamp order (they come from successive frames).
+ * 
+ * When GoalTracker.kFilterModel is set, the smoothed position comes from a
+ * Kalman filter (GoalTrackFilter) instead of the average, and can be
+ * predicted to the current time with getPredictedPosition().  The buffer is
+ * still used for the track's lifetime and stability.
+ * 
  * @see GoalTracker.java
  */
 public class GoalTrack
 {
-	Map<Double, Vector2d> observedPositions = new TreeMap<>();
-	Vector2d smoothedPosition = null;
+	public static final int kCapacity = 32;		// more than kGoalTrackAveragePeriod worth of frames; oldest dropped when full
+
+	private final double[] timestamps = new double[kCapacity];
+	private final double[] xs = new double[kCapacity];
+	private final double[] ys = new double[kCapacity];
+	private int head = 0;		// oldest observation
+	private int size = 0;
+	private double sumX = 0;
+	private double sumY = 0;
+	private double latestTimestamp = 0;
+
+	private final Vector2d smoothedPosition = new Vector2d();
+	private final GoalTrackFilter filter = new GoalTrackFilter();
+	private final GoalTracker.TrackReport report = new GoalTracker.TrackReport();	// reused by GoalTracker when ranking
+	private GoalTrackFilter.Model filterModel = GoalTrackFilter.Model.NONE;
 	int trackId;
 
  
-	private GoalTrack()
+	GoalTrack()
 	{
 	}
 
 	/**
-	 * Makes a new track based on the timestamp and the goal's coordinates (from
-	 * vision)
+	 * Restarts this track with a first observation, so that dead tracks can be
+	 * reused
 	 */
-	public static GoalTrack makeNewTrack(double timestamp, Vector2d firstObservation, int id)
+	public void reset(double timestamp, double _x, double _y, int id)
 	{
-		GoalTrack track = new GoalTrack();
-		track.observedPositions.put(timestamp, firstObservation);
-		track.smoothedPosition = firstObservation;
-		track.trackId = id;
-		return track;
+		reset(timestamp, _x, _y, Double.NaN, id);
 	}
 
-	public void emptyUpdate()
+	/**
+	 * @param _range distance from the camera to the goal, in inches (NaN if unknown)
+	 */
+	public void reset(double timestamp, double _x, double _y, double _range, int id)
+	{
+		clear();
+		add(timestamp, _x, _y);
+		filterModel = GoalTracker.kFilterModel;
+		if (filterModel != GoalTrackFilter.Model.NONE)
+			filter.reset(filterModel, timestamp, _x, _y, _range);
+		smooth();
+		trackId = id;
+	}
+
+	public void emptyUpdate(double currentTime)
 	{
-		pruneByTime();
+		pruneByTime(currentTime);
 	}
 
 	/**
-	 * Attempts to update the track with a new observation.
-	 * 
-	 * @return True if the track was updated
+	 * Distance from this track to an observation (_x, _y) captured at
+	 * timestamp, or infinity if the track has died.  When filtered, the track
+	 * is first predicted to the observation's time, so a moving goal (relative
+	 * to the field estimate) is compared where the filter expects it to be.
 	 */
-	public boolean tryUpdate(double timestamp, Vector2d newObservation)
+	public double distance(double _x, double _y, double timestamp)
 	{
 		if (!isAlive())
+			return Double.POSITIVE_INFINITY;
+		double dx, dy;
+		if (filterModel != GoalTrackFilter.Model.NONE)
 		{
-			return false;
+			dx = _x - filter.getX(timestamp);
+			dy = _y - filter.getY(timestamp);
 		}
-		double distance = smoothedPosition.distance(newObservation);
-		if (distance < GoalTracker.kMaxTrackerDistance)
-		{
-			observedPositions.put(timestamp, newObservation);
-			pruneByTime();
-			return true;
-		} 
 		else
 		{
-			// new observation was too far from smoothed observation -- ignore it
-			emptyUpdate();
-			return false;
+			dx = _x - smoothedPosition.getX();
+			dy = _y - smoothedPosition.getY();
 		}
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+
+	/**
+	 * Adds an observation that has already been associated with this track
+	 */
+	public void addObservation(double currentTime, double timestamp, double _x, double _y)
+	{
+		addObservation(currentTime, timestamp, _x, _y, Double.NaN);
+	}
+
+	/**
+	 * @param _range distance from the camera to the goal, in inches (NaN if unknown)
+	 */
+	public void addObservation(double currentTime, double timestamp, double _x, double _y, double _range)
+	{
+		add(timestamp, _x, _y);
+		if (filterModel != GoalTrackFilter.Model.NONE)
+			filter.update(timestamp, _x, _y, _range);
+		pruneByTime(currentTime);
+	}
+
+	private void add(double timestamp, double _x, double _y)
+	{
+		if (size == kCapacity)
+			removeOldest();
+
+		int tail = (head + size) % kCapacity;
+		timestamps[tail] = timestamp;
+		xs[tail] = _x;
+		ys[tail] = _y;
+		size++;
+		sumX += _x;
+		sumY += _y;
+		if (size == 1 || timestamp > latestTimestamp)
+			latestTimestamp = timestamp;
+	}
+
+	private void removeOldest()
+	{
+		sumX -= xs[head];
+		sumY -= ys[head];
+		head = (head + 1) % kCapacity;
+		size--;
+	}
+
+	private void clear()
+	{
+		head = 0;
+		size = 0;
+		sumX = 0;		// also clears any rounding error in the running sums
+		sumY = 0;
+		latestTimestamp = 0;
+	}
+
+	/**
+	 * This track's report, updated in place with the position predicted to _time
+	 */
+	GoalTracker.TrackReport getReport(double _time)
+	{
+		return report.set(this, _time);
 	}
 
 	public boolean isAlive()
 	{
-		return observedPositions.size() > 0;
+		return size > 0;
 	}
 
 	/**
-	 * Removes the track if it is older than the set "age" described in the
-	 * Constants file.
+	 * Removes observations older than kGoalTrackAveragePeriod.  The track dies
+	 * when none are left.
 	 * 
-	 * @see Constants.java
+	 * @see GoalTracker.java
 	 */
-	void pruneByTime()
+	void pruneByTime(double currentTime)
 	{
-		double deleteBefore = Timer.getFPGATimestamp() - GoalTracker.kGoalTrackAveragePeriod;
-		for (Iterator<Map.Entry<Double, Vector2d>> it = observedPositions.entrySet().iterator(); it.hasNext();)
+		double deleteBefore = currentTime - GoalTracker.kGoalTrackAveragePeriod;
+		while (size > 0 && timestamps[head] < deleteBefore)
 		{
-			Map.Entry<Double, Vector2d> entry = it.next();
-			if (entry.getKey() < deleteBefore)
-			{
-				it.remove();
-			}
+			removeOldest();
 		}
-		if (observedPositions.isEmpty())
+		if (size == 0)
 		{
-			smoothedPosition = null;
+			clear();
 		} 
 		else
 		{
@@ -107,38 +188,53 @@ public class GoalTrack
 	}
 
 	/**
-	 * Averages out the observed positions based on an set of observed positions
+	 * Averages out the observed positions, from the running sums (or takes
+	 * the filter's estimate as of the latest observation)
 	 */
 	void smooth()
 	{
 		if (isAlive())
 		{
-			double x = 0;
-			double y = 0;
-			for (Map.Entry<Double, Vector2d> entry : observedPositions.entrySet())
-			{
-				x += entry.getValue().getX();
-				y += entry.getValue().getY();
-			}
-			x /= observedPositions.size();
-			y /= observedPositions.size();
-			smoothedPosition = new Vector2d(x, y);
+			if (filterModel == GoalTrackFilter.Model.NONE)
+				smoothedPosition.set(sumX / size, sumY / size);
+			else
+				smoothedPosition.set(filter.getX(filter.getTime()), filter.getY(filter.getTime()));
 		}
 	}
 
+	/**
+	 * @return the average of the observed positions.  This is updated in
+	 * place, so copy it to keep it.  Not meaningful once the track has died.
+	 */
 	public Vector2d getSmoothedPosition()
 	{
 		return smoothedPosition;
 	}
 
+	/**
+	 * Position of the goal predicted to _time, written to _position.  The
+	 * same as getSmoothedPosition() when the track is not filtered.
+	 */
+	public Vector2d getPredictedPosition(double _time, Vector2d _position)
+	{
+		if (filterModel == GoalTrackFilter.Model.NONE)
+			return _position.set(smoothedPosition);
+		return _position.set(filter.getX(_time), filter.getY(_time));
+	}
+
 	public double getLatestTimestamp()
 	{
-		return observedPositions.keySet().stream().max(Double::compareTo).orElse(0.0);
+		return latestTimestamp;
+	}
+
+	public int getNumObservations()
+	{
+		return size;
 	}
 
 	public double getStability()
 	{
-		return Math.min(1.0, observedPositions.size() / (Constants.kCameraFrameRate * GoalTracker.kGoalTrackAveragePeriod));
+		return Math.min(1.0, size / (Constants.kCameraFrameRate * GoalTracker.kGoalTrackAveragePeriod));
 	}
 
 	public int getId()
@@ -0,0 +1,108 @@
+package frc.robot.vision;
+
+/**
+ * Kalman filter for the field position of one goal track, used in place of
+ * averaging the track's observations when GoalTracker.kFilterModel is set.
+ * 
+ * Each observation is applied at the time its image was captured, and the
+ * estimate can be predicted forward to the current time, so the filter does
+ * not add the lag of an averaging window.  Measurement noise grows with the
+ * range to the target, since range from an image is less certain far away.
+ * 
+ * Goals do not move, but their field positions drift with the robot's pose
+ * error.  The CONSTANT_POSITION model allows for that drift as process
+ * noise; CONSTANT_VELOCITY also estimates its rate.
+ * 
+ * The x and y axes are filtered independently.  With the same (isotropic)
+ * noise on both, their covariances stay equal, so only one is kept.
+ */
+public class GoalTrackFilter
+{
+	public enum Model { NONE, CONSTANT_POSITION, CONSTANT_VELOCITY }
+
+	public static double kMinMeasurementNoise = 1.0;			// inches (1 sigma), at close range
+	public static double kMeasurementNoisePerRangeSq = 1.5e-4;	// inches per inch^2 of range (range error from an image grows with range^2)
+	public static double kPositionProcessNoise = 25.0;			// inches^2/sec, CONSTANT_POSITION model
+	public static double kAccelProcessNoise = 400.0;			// (inches/sec^2)^2 * sec, CONSTANT_VELOCITY model
+	public static double kInitialVelocityStdDev = 24.0;			// inches/sec, CONSTANT_VELOCITY model
+
+	private Model model = Model.CONSTANT_POSITION;
+	private double time;
+	private double x, y;		// position (inches)
+	private double vx, vy;		// velocity (inches/sec), zero for CONSTANT_POSITION
+	private double pp, pv, vv;	// covariance of (position, velocity) along each axis
+
+	/**
+	 * Start the filter at a first observation
+	 */
+	public void reset(Model _model, double _time, double _x, double _y, double _range)
+	{
+		model = _model;
+		time = _time;
+		x = _x;
+		y = _y;
+		vx = 0;
+		vy = 0;
+		pp = getMeasurementVariance(_range);
+		pv = 0;
+		vv = (model == Model.CONSTANT_VELOCITY) ? kInitialVelocityStdDev * kInitialVelocityStdDev : 0;
+	}
+
+	/**
+	 * Apply an observation of the goal at (_x, _y), seen in an image captured
+	 * at _time from _range inches away (NaN if unknown)
+	 */
+	public void update(double _time, double _x, double _y, double _range)
+	{
+		// predict to the time of the observation (observations slightly out of order are applied at the filter's time)
+		double dt = Math.max(_time - time, 0);
+		if (model == Model.CONSTANT_VELOCITY)
+		{
+			x += vx * dt;
+			y += vy * dt;
+			double q = kAccelProcessNoise;
+			pp += dt * (2 * pv + dt * vv) + q * dt * dt * dt / 3;
+			pv += dt * vv + q * dt * dt / 2;
+			vv += q * dt;
+		}
+		else
+		{
+			pp += kPositionProcessNoise * dt;
+		}
+		time = Math.max(time, _time);
+
+		// correct
+		double s = pp + getMeasurementVariance(_range);
+		double kp = pp / s;
+		double kv = pv / s;
+		double ex = _x - x;
+		double ey = _y - y;
+		x += kp * ex;
+		y += kp * ey;
+		if (model == Model.CONSTANT_VELOCITY)
+		{
+			vx += kv * ex;
+			vy += kv * ey;
+		}
+		vv -= kv * pv;
+		pv -= kp * pv;
+		pp -= kp * pp;
+	}
+
+	public static double getMeasurementVariance(double _range)
+	{
+		double sigma = kMinMeasurementNoise;
+		if (_range > 0)		// false for NaN
+			sigma += kMeasurementNoisePerRangeSq * _range * _range;
+		return sigma * sigma;
+	}
+
+	// estimate predicted to _time
+	public double getX(double _time) { return x + vx * (_time - time); }
+	public double getY(double _time) { return y + vy * (_time - time); }
+
+	public double getTime() { return time; }
+	public double getVelocityX() { return vx; }
+	public double getVelocityY() { return vy; }
+	public double getPositionVariance() { return pp; }
+}
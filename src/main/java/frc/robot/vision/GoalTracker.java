@@ -1,9 +1,6 @@
 package frc.robot.vision;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,8 +10,6 @@ import frc.robot.lib.util.Vector2d;
 import frc.robot.command_status.RobotState;
 import frc.robot.command_status.GoalStates.GoalState;
 
-import edu.wpi.first.wpilibj.Timer;
-
 /**
  * This is used in the event that multiple goals are detected to judge all goals
  * based on timestamp, stability, and continuation of previous goals (i.e. if a
@@ -30,6 +25,7 @@ public class GoalTracker
     public static double kMaxTrackerDistance = 18.0;	// inches
     public static double kGoalTrackAveragePeriod = 0.1;		// seconds (will average goal detections over this period)
 	public static double kMaxTargetAge = 5.0; //2.0 // 0.4;			// seconds (will not consider targets that haven't been updated in this time)
+	public static GoalTrackFilter.Model kFilterModel = GoalTrackFilter.Model.NONE;	// NONE: average observations over kGoalTrackAveragePeriod
 	
     public static double kTrackReportComparatorStablityWeight = 1.0;
     public static double kTrackReportComparatorAgeWeight = 1.0;
@@ -50,12 +46,35 @@ public class GoalTracker
 		public double stability;			// The percentage of the goal tracking time during which this goal has been observed (0 to 1)
 		public int trackId;					// The track id
 
+		public TrackReport()
+		{
+			fieldToGoal = new Vector2d();
+		}
+
 		public TrackReport(GoalTrack track)
 		{
-			fieldToGoal = track.getSmoothedPosition();
+			this(track, track.getLatestTimestamp());
+		}
+
+		/**
+		 * Report with the goal position predicted to _time (for filtered tracks)
+		 */
+		public TrackReport(GoalTrack track, double _time)
+		{
+			this();
+			set(track, _time);
+		}
+
+		/**
+		 * Fill in this report in place (each GoalTrack reuses one report)
+		 */
+		public TrackReport set(GoalTrack track, double _time)
+		{
+			track.getPredictedPosition(_time, fieldToGoal);
 			latestTimestamp = track.getLatestTimestamp();
 			stability = track.getStability();
 			trackId = track.getId();
+			return this;
 		}
 
 		public Vector2d getFieldToGoal() {	return fieldToGoal;	}
@@ -69,129 +88,218 @@ public class GoalTracker
 	
 	
 	/**
-	 * TrackReportComparators are used in the case that multiple tracks are
-	 * active (e.g. we see or have recently seen multiple goals). They contain
-	 * heuristics used to pick which track we should aim at by calculating a
-	 * score for each track (highest score wins).
+	 * Scoring terms are used in the case that multiple tracks are active (e.g.
+	 * we see or have recently seen multiple goals). Each term is a heuristic
+	 * used to pick which track we should aim at.  A track's score is the
+	 * weighted sum of its terms (highest score wins).  Add new heuristics with
+	 * addScoringTerm().
 	 */
-	public static class TrackReportComparator implements Comparator<TrackReport>
+	public interface ScoringTerm
 	{
-		// Reward tracks for being more stable (seen in more frames)
-		double stabilityWeight;
-		// Reward tracks for being recently observed
-		double ageWeight;
-		double currentTimestamp;
-		// Reward tracks for being continuations of tracks that we are already
-		// tracking
-		double switchingWeight;
-		double distanceWeight;
-		double angleWeight;
-		int currentBestTrackId;
-
-		public TrackReportComparator(double stability_weight, double age_weight, double switching_weight,
-			double distance_weight, double angle_weight, int current_best_track_id, double current_timestamp)
+		double score(TrackReport report, RankingContext context);
+	}
+
+	/**
+	 * Values shared by all scoring terms for one ranking, read once per ranking
+	 */
+	public static class RankingContext
+	{
+		public double currentTimestamp;
+		public double vehicleX, vehicleY, vehicleHeading;	// latest field to vehicle pose
+		public int currentBestTrackId;						// track we are already aiming at, or -1
+	}
+
+	// Reward tracks for being more stable (seen in more frames)
+	public static final ScoringTerm kStabilityTerm = new ScoringTerm()
+	{
+		public double score(TrackReport report, RankingContext context)
 		{
-			stabilityWeight = stability_weight;
-			ageWeight = age_weight;
-			switchingWeight = switching_weight;
-			distanceWeight = distance_weight;
-			angleWeight = angle_weight;
-			currentBestTrackId = current_best_track_id;
-			currentTimestamp = current_timestamp;
+			return report.stability;
 		}
+	};
 
-		double score(TrackReport report)
+	// Reward tracks for being recently observed
+	public static final ScoringTerm kAgeTerm = new ScoringTerm()
+	{
+		public double score(TrackReport report, RankingContext context)
 		{
-			double stabilityScore = stabilityWeight * report.stability;
-			double trackAge = (currentTimestamp - report.latestTimestamp);
-			double ageScore = ageWeight	* Math.max(0, 1 - trackAge / kGoalTrackAveragePeriod);
-
-			Pose fieldToVehicle = RobotState.getInstance().getLatestFieldToVehicle();
-
-			// find relative distance and bearing to goal
-			Vector2d shooterToGoal = report.fieldToGoal.sub(fieldToVehicle.getPosition());
-
-			double distanceToGoal = shooterToGoal.length();
-			double bearingToGoal = shooterToGoal.angle() - fieldToVehicle.getHeading(); 	// bearing relative to shooter's heading
+			double trackAge = (context.currentTimestamp - report.latestTimestamp);
+			return Math.max(0, 1 - trackAge / kGoalTrackAveragePeriod);
+		}
+	};
 
-			double distanceScore = -distanceWeight * distanceToGoal;
-			double angleScore = -Math.abs(angleWeight) * bearingToGoal;
+	// Reward tracks for being continuations of tracks that we are already tracking
+	public static final ScoringTerm kSwitchingTerm = new ScoringTerm()
+	{
+		public double score(TrackReport report, RankingContext context)
+		{
+			return (report.trackId == context.currentBestTrackId ? 1 : 0);
+		}
+	};
 
-			double switchingScore = (report.trackId == currentBestTrackId ? switchingWeight : 0);
-			return (distanceScore + angleScore + stabilityScore + ageScore + switchingScore);
+	// Reward tracks for being close
+	public static final ScoringTerm kDistanceTerm = new ScoringTerm()
+	{
+		public double score(TrackReport report, RankingContext context)
+		{
+			double dx = report.fieldToGoal.getX() - context.vehicleX;
+			double dy = report.fieldToGoal.getY() - context.vehicleY;
+			return -Math.sqrt(dx*dx + dy*dy);
 		}
+	};
 
-		@Override
-		public int compare(TrackReport o1, TrackReport o2)
+	// Reward tracks by bearing relative to the shooter's heading
+	public static final ScoringTerm kAngleTerm = new ScoringTerm()
+	{
+		public double score(TrackReport report, RankingContext context)
 		{
-			double diff = score(o1) - score(o2);
-			
-			// rv>0 if o1 is better than o2
-			// rv=0 if o1 is equal to o2
-			// rv<0 if o1 is worse than o2
-			int rv = 0;
-			if (diff < 0)
-				rv = 1;
-			else if (diff > 0)
-				rv = -1;
-
-			return rv;
+			double dx = report.fieldToGoal.getX() - context.vehicleX;
+			double dy = report.fieldToGoal.getY() - context.vehicleY;
+			double bearingToGoal = Math.atan2(dy, dx) - context.vehicleHeading;
+			return -bearingToGoal;
 		}
+	};
+
+	public static final int kMaxScoringTerms = 8;
+	final ScoringTerm[] scoringTerms = new ScoringTerm[kMaxScoringTerms];
+	final double[] scoringWeights = new double[kMaxScoringTerms];
+	int numScoringTerms = 0;
+
+	/**
+	 * Add _weight * _term to the score used to rank tracks
+	 */
+	public void addScoringTerm(double _weight, ScoringTerm _term)
+	{
+		if (numScoringTerms == kMaxScoringTerms)
+			throw new IllegalStateException("Too many GoalTracker scoring terms");
+		scoringTerms[numScoringTerms] = _term;
+		scoringWeights[numScoringTerms] = _weight;
+		numScoringTerms++;
 	}
 
-	List<GoalTrack> currentTracks = new ArrayList<>();
+	public void clearScoringTerms()
+	{
+		numScoringTerms = 0;
+	}
+
+	List<GoalTrack> currentTracks = new ArrayList<>(kMaxTracks);
+	List<GoalTrack> freeTracks = new ArrayList<>(kMaxTracks);		// dead tracks, reused for new goals
 	int currentBestTrackId = -1;
 	int mNextId = 0;
 
 	public GoalTracker()
 	{
+		for (int k = 0; k < kMaxTracks; k++)
+			freeTracks.add(new GoalTrack());
+
+		addScoringTerm(kTrackReportComparatorStablityWeight, kStabilityTerm);
+		addScoringTerm(kTrackReportComparatorAgeWeight, kAgeTerm);
+		addScoringTerm(kTrackReportComparatorSwitchingWeight, kSwitchingTerm);
+		addScoringTerm(kTrackReportComparatorDistanceWeight, kDistanceTerm);
+		addScoringTerm(Math.abs(kTrackReportComparatorAngleWeight), kAngleTerm);
 	}
 
 	public void reset()
 	{
+		freeTracks.addAll(currentTracks);
 		currentTracks.clear();
 	}
 
-	public void update(double imageTimestamp, List<Vector2d> fieldToGoals)
+	// data association scratch, reused every frame
+	public static final int kMaxTracks = 16;			// observations that would start more tracks are dropped
+	public static final int kMaxObservations = 16;		// goals per frame beyond this are ignored
+	final double[] pairCost = new double[kMaxTracks * kMaxObservations];	// track/observation pairs within the gate
+	final int[] pairTrack = new int[kMaxTracks * kMaxObservations];
+	final int[] pairObservation = new int[kMaxTracks * kMaxObservations];
+	final boolean[] trackMatched = new boolean[kMaxTracks];
+	final boolean[] observationMatched = new boolean[kMaxObservations];
+
+	public void update(double currentTime, double imageTimestamp, double[] goalXs, double[] goalYs, int numGoals)
 	{
-		boolean hasUpdatedTrack = false;
-		
-		// Try to update existing tracks
-		for (Vector2d target : fieldToGoals)
+		update(currentTime, imageTimestamp, goalXs, goalYs, null, numGoals);
+	}
+
+	/**
+	 * Update the tracks with all of the goals seen in one camera frame, given
+	 * as field coordinates in goalXs[0..numGoals-1], goalYs[0..numGoals-1],
+	 * and their ranges from the camera in goalRanges (null if unknown)
+	 * 
+	 * Goals are associated with tracks by global nearest neighbour: the
+	 * closest track/goal pair is matched first, then the closest of the
+	 * remaining pairs, and so on, considering only pairs within
+	 * kMaxTrackerDistance.  Each track takes at most one goal per frame.
+	 * Unmatched tracks age out, and unmatched goals start new tracks.
+	 */
+	public void update(double currentTime, double imageTimestamp, double[] goalXs, double[] goalYs, double[] goalRanges, int numGoals)
+	{
+		int numTracks = currentTracks.size();
+		int numObservations = Math.min(numGoals, kMaxObservations);
+
+		// Build track x observation distance matrix, keeping only the pairs within the gate
+		int numPairs = 0;
+		for (int t = 0; t < numTracks; t++)
 		{
-			for (GoalTrack track : currentTracks)
+			GoalTrack track = currentTracks.get(t);
+			trackMatched[t] = false;
+			for (int o = 0; o < numObservations; o++)
 			{
-				if (!hasUpdatedTrack)
+				double cost = track.distance(goalXs[o], goalYs[o], imageTimestamp);
+				if (cost < kMaxTrackerDistance)
 				{
-					// see if this goal location is close to any previously found goals
-					if (track.tryUpdate(imageTimestamp, target))
+					// insertion sort by cost (only a few pairs pass the gate)
+					int k = numPairs++;
+					while (k > 0 && pairCost[k-1] > cost)
 					{
-						hasUpdatedTrack = true;
+						pairCost[k] = pairCost[k-1];
+						pairTrack[k] = pairTrack[k-1];
+						pairObservation[k] = pairObservation[k-1];
+						k--;
 					}
-				}
-				else
-				{
-					track.emptyUpdate();
+					pairCost[k] = cost;
+					pairTrack[k] = t;
+					pairObservation[k] = o;
 				}
 			}
 		}
+		for (int o = 0; o < numObservations; o++)
+			observationMatched[o] = false;
+
+		// Greedy gated assignment: match the closest pair first, then the closest remaining pair, ...
+		// (with targets more than twice the gate apart, this is also the optimal assignment)
+		for (int k = 0; k < numPairs; k++)
+		{
+			int t = pairTrack[k];
+			int o = pairObservation[k];
+			if (trackMatched[t] || observationMatched[o])
+				continue;
+
+			trackMatched[t] = true;
+			observationMatched[o] = true;
+			currentTracks.get(t).addObservation(currentTime, imageTimestamp, goalXs[o], goalYs[o], getRange(goalRanges, o));
+		}
+
+		// Age out tracks that were not seen in this frame
+		for (int t = 0; t < numTracks; t++)
+		{
+			if (!trackMatched[t])
+				currentTracks.get(t).emptyUpdate(currentTime);
+		}
 		
 		// Prune any tracks that have died
-		for (Iterator<GoalTrack> it = currentTracks.iterator(); it.hasNext();)
+		for (int t = numTracks-1; t >= 0; t--)
 		{
-			GoalTrack track = it.next();
-			if (!track.isAlive())
-			{
-				it.remove();
-			}
+			if (!currentTracks.get(t).isAlive())
+				freeTracks.add(currentTracks.remove(t));
 		}
 		
-		// If all tracks are dead, start new tracks for any detections
-		if (currentTracks.isEmpty())
+		// Start new tracks for goals that did not match an existing track
+		for (int o = 0; o < numObservations && !freeTracks.isEmpty(); o++)
 		{
-			for (Vector2d target : fieldToGoals)
+			if (!observationMatched[o])
 			{
-				currentTracks.add(GoalTrack.makeNewTrack(imageTimestamp, target, mNextId));
+				GoalTrack track = freeTracks.remove(freeTracks.size()-1);
+				track.reset(imageTimestamp, goalXs[o], goalYs[o], getRange(goalRanges, o), mNextId);
+				currentTracks.add(track);
 				++mNextId;
 			}
 		}
@@ -200,29 +308,48 @@ public class GoalTracker
 
 	
 	
+	private static double getRange(double[] _goalRanges, int _k)
+	{
+		return (_goalRanges == null) ? Double.NaN : _goalRanges[_k];
+	}
+
 	public boolean hasTracks()
 	{
 		return !currentTracks.isEmpty();
 	}
 
-	public List<TrackReport> getTrackReports()
+	// reused every cycle, so ranking does not allocate
+	final List<TrackReport> recentReports = new ArrayList<>(kMaxTracks);
+	final List<TrackReport> trackReports = new ArrayList<>(kMaxTracks);		// sorted, best first (also read by the logger)
+
+	/**
+	 * Reports for the tracks updated within kMaxTargetAge.  The list and the
+	 * reports in it are reused, so they are only valid until the next call.
+	 */
+	public List<TrackReport> getTrackReports(double now)
 	{
-        double now = Timer.getFPGATimestamp();
-		
-		List<TrackReport> rv = new ArrayList<>();
-		for (GoalTrack track : currentTracks)
+		recentReports.clear();
+		for (int k = 0; k < currentTracks.size(); k++)
 		{
+			GoalTrack track = currentTracks.get(k);
 			// only return tracks that have been updated recently
 			if (now - track.getLatestTimestamp() <= kMaxTargetAge)
 			{
-				rv.add(new TrackReport(track));
+				recentReports.add(track.getReport(now));
 			}
 		}
-		return rv;
+		return recentReports;
 	}
 
-	List<TrackReport> trackReports = new ArrayList<>();
+	// ranking scratch
+	final RankingContext rankingContext = new RankingContext();
+	final double[] scores = new double[kMaxTracks];
+	final int[] order = new int[kMaxTracks];
 
+	/**
+	 * Reports for recent tracks, best first.  The list and the reports in it
+	 * are reused, so they are only valid until the next call.
+	 */
 	public List<TrackReport> getSortedTrackReports(double currentTime, Optional<GoalState> currentTarget)
 	{
 		// Sort tracks (actually TrackReports) so we can identify the best track
@@ -230,15 +357,41 @@ public class GoalTracker
 			currentBestTrackId = currentTarget.get().getTrackId();
 		else
 			currentBestTrackId = -1;
-			
-		// define a comparator so that GoalTracks can be sorted by rank
-	    GoalTracker.TrackReportComparator goalTrackComparator = new GoalTracker.TrackReportComparator(
-				kTrackReportComparatorStablityWeight, kTrackReportComparatorAgeWeight, kTrackReportComparatorSwitchingWeight, 
-				kTrackReportComparatorDistanceWeight, kTrackReportComparatorAngleWeight, currentBestTrackId, currentTime);
-		
-		trackReports = getTrackReports();
-		Collections.sort(trackReports, goalTrackComparator);	// sort tracks by rank
-		
+
+		// read the vehicle pose once for all tracks
+		Pose fieldToVehicle = RobotState.getInstance().getLatestFieldToVehicle();
+		rankingContext.currentTimestamp = currentTime;
+		rankingContext.vehicleX = fieldToVehicle.getX();
+		rankingContext.vehicleY = fieldToVehicle.getY();
+		rankingContext.vehicleHeading = fieldToVehicle.getHeading();
+		rankingContext.currentBestTrackId = currentBestTrackId;
+
+		synchronized (trackReports)		// the logger reads the best report
+		{
+			List<TrackReport> reports = getTrackReports(currentTime);
+			int numReports = reports.size();
+
+			// score each track once, then order by score (insertion sort: only a few tracks, and stable)
+			for (int k = 0; k < numReports; k++)
+			{
+				double score = 0;
+				for (int j = 0; j < numScoringTerms; j++)
+					score += scoringWeights[j] * scoringTerms[j].score(reports.get(k), rankingContext);
+				scores[k] = score;
+
+				int i = k;
+				while (i > 0 && scores[order[i-1]] < score)
+				{
+					order[i] = order[i-1];
+					i--;
+				}
+				order[i] = k;
+			}
+
+			trackReports.clear();		// sort tracks by rank
+			for (int k = 0; k < numReports; k++)
+				trackReports.add(reports.get(order[k]));
+		}
 		return trackReports;
 	}
 
@@ -251,14 +404,22 @@ public class GoalTracker
 		@Override
 		public void log()
 		{
-			if (trackReports.size() > 0)
+			int trackId;
+			double x, y, stability;
+			synchronized (trackReports)		// copy out, as the reports are reused every cycle
 			{
+				if (trackReports.isEmpty())
+					return;
 				TrackReport report = trackReports.get(0);
-				put("GoalTracker/BestTrackReport/trackId", report.trackId);
-				put("GoalTracker/BestTrackReport/FieldToGoalX", report.getFieldToGoal().getX());
-				put("GoalTracker/BestTrackReport/FieldToGoalY", report.getFieldToGoal().getY());
-				put("GoalTracker/BestTrackReport/stability", report.getStability());
+				trackId = report.trackId;
+				x = report.getFieldToGoal().getX();
+				y = report.getFieldToGoal().getY();
+				stability = report.getStability();
 			}
+			put("GoalTracker/BestTrackReport/trackId", trackId);
+			put("GoalTracker/BestTrackReport/FieldToGoalX", x);
+			put("GoalTracker/BestTrackReport/FieldToGoalY", y);
+			put("GoalTracker/BestTrackReport/stability", stability);
 		}
 	};
 
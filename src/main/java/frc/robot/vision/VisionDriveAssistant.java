@@ -2,13 +2,13 @@ package frc.robot.vision;
 
 import java.util.Optional;
 
-import edu.wpi.first.wpilibj.Timer;
 import frc.robot.Constants;
 import frc.robot.command_status.DriveCommand;
 import frc.robot.command_status.GoalStates;
 import frc.robot.command_status.GoalStates.GoalState;
 import frc.robot.command_status.RobotState;
 import frc.robot.lib.joystick.SelectedJoystick;
+import frc.robot.lib.util.Clock;
 import frc.robot.lib.util.DataLogger;
 import frc.robot.lib.util.Kinematics;
 import frc.robot.lib.util.Kinematics.WheelSpeed;
@@ -50,7 +50,7 @@ public class VisionDriveAssistant
     {
         DriveCommand driveCmd = _driveCmd;
         enabled = _enable;
-        double currentTime = Timer.getFPGATimestamp();
+        double currentTime = Clock.getInstance().getTime();
  
         // update currentGoalState based on whether target is currently seen, and if button is being pressed
         Optional<GoalState> visionGoalState = goalStates.getBestVisionTarget();
@@ -1,18 +1,33 @@
 package frc.robot.vision;
 
-import java.util.ArrayList;
-
-import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants;
+import frc.robot.command_status.FrameTree;
+import frc.robot.command_status.RobotState;
 import frc.robot.lib.joystick.SelectedJoystick;
 import frc.robot.lib.sensors.Limelight;
 import frc.robot.lib.sensors.Limelight.BoundingAngles;
 import frc.robot.lib.sensors.Limelight.BoundingRectangle;
 import frc.robot.lib.util.DataLogger;
+import frc.robot.lib.util.Vector2d;
+import frc.robot.loops.CycleContext;
 import frc.robot.loops.Loop;
 
 /**
  * VisionLoop contains the various attributes calculated by the vision system,
  * namely a list of targets and the timestamp at which it was captured.
+ * 
+ * The loop polls faster than the Limelight's frame rate, but only updates
+ * VisionTargetList when a new frame has arrived, so each frame is processed
+ * (and counted by the GoalTracker) exactly once.
+ * 
+ * Each frame yields up to VisionTargetList.kMaxTargets targets: the primary
+ * (grouped) target, with its bounding box from the corners, and any of the
+ * Limelight's raw contours that are not part of it.  Each raw contour is one
+ * strip of tape, and only reports its center and area, so its bounding box
+ * is estimated from the area using the strip's size and tilt.  Two strips
+ * that are level and a target's width apart are paired into a whole target;
+ * any other strip becomes a target of its own, sized as a strip (its center
+ * is then about 5.5 inches to one side of the target's center).
  */
 public class VisionLoop implements Loop {
 	private static VisionLoop instance = new VisionLoop();
@@ -22,6 +37,7 @@ public class VisionLoop implements Loop {
 	}
 
 	SelectedJoystick selectedJoystick = SelectedJoystick.getInstance();
+	RobotState robotState = RobotState.getInstance();
 
 	// camera selection
 	public Limelight cargoCamera = Limelight.getCargoInstance();
@@ -31,6 +47,38 @@ public class VisionLoop implements Loop {
 	public VisionTargetList visionTargetList = VisionTargetList.getInstance();
 
 	BoundingRectangle boundingRectangle = cameraSelection.new BoundingRectangle();
+	BoundingAngles boundingAngles = cameraSelection.new BoundingAngles();
+	Limelight.FrameData frame = new Limelight.FrameData();		// latest frame, reused
+
+	// one strip of tape, facing the camera
+	static final double kStripAngleRad = Constants.kTargetStripAngleDeg * Vector2d.degreesToRadians;
+	public static final double kStripAreaSqInches = Constants.kTargetStripWidthInches * Constants.kTargetStripLengthInches;
+	public static final double kStripBoundingWidthInches  = Constants.kTargetStripWidthInches * Math.cos(kStripAngleRad) + Constants.kTargetStripLengthInches * Math.sin(kStripAngleRad);
+	public static final double kStripBoundingHeightInches = Constants.kTargetStripLengthInches * Math.cos(kStripAngleRad) + Constants.kTargetStripWidthInches * Math.sin(kStripAngleRad);
+	public static final double kStripSpacingInches = Constants.kTargetWidthInches - kStripBoundingWidthInches;	// between the centers of a target's two strips
+	public static double kStripPairTolerance = 0.3;		// fraction of kStripSpacingInches
+
+	// raw contours that are not part of the primary target (reused each frame)
+	final double[] stripX = new double[Limelight.kNumRawContours];		// center, in pixels
+	final double[] stripY = new double[Limelight.kNumRawContours];
+	final double[] stripScale = new double[Limelight.kNumRawContours];	// pixels per inch
+	final boolean[] stripPaired = new boolean[Limelight.kNumRawContours];
+
+	final VisionTargetList.Target[] targets = new VisionTargetList.Target[VisionTargetList.kMaxTargets];
+	int numTargets = 0;
+	BoundingRectangle rawRectangle = cameraSelection.new BoundingRectangle();
+	BoundingAngles rawAngles = cameraSelection.new BoundingAngles();
+
+	VisionLoop() {
+		for (int k = 0; k < targets.length; k++)
+			targets[k] = new VisionTargetList.Target();
+	}
+
+	// last frame processed
+	Limelight prevCamera = null;
+	long prevFrameCount = 0;
+	int numFrames = 0;			// frames processed since last logged
+	int numRepeatedCycles = 0;	// cycles without a new frame since last logged
 
 	@Override
 	public void onStart() {
@@ -38,8 +86,8 @@ public class VisionLoop implements Loop {
 	}
 
 	@Override
-	public void onLoop() {
-		double currentTime = Timer.getFPGATimestamp();
+	public void onLoop(CycleContext _context) {
+		double currentTime = _context.getTimestamp();
 
 		// get target info from Limelight
 		getTargets(currentTime);
@@ -51,35 +99,130 @@ public class VisionLoop implements Loop {
 	}
 
 	public void getTargets(double currentTime) {
-		cameraSelection = selectedJoystick.getDrivingCargo() ? cargoCamera : hatchCamera;
+		// same camera selection as the rest of the loops (set by the main robot thread)
+		boolean drivingCargo = robotState.getDrivingCargo();
+		cameraSelection = drivingCargo ? cargoCamera : hatchCamera;
+		FrameTree.Frame cameraFrame = drivingCargo ? FrameTree.Frame.CARGO_CAMERA : FrameTree.Frame.HATCH_CAMERA;
+
+		// only process each frame once
+		long frameCount = cameraSelection.getFrameCount();
+		if (frameCount == 0 || (cameraSelection == prevCamera && frameCount == prevFrameCount))
+		{
+			numRepeatedCycles++;
+			return;
+		}
+		cameraSelection.snapshot(frame);
+		prevCamera = cameraSelection;
+		prevFrameCount = frame.frameCount;
+		numFrames++;
 
-		double cameraLatency = cameraSelection.getTotalLatencyMs() / 1000.0;
-		double imageCaptureTimestamp = currentTime - cameraLatency; // assumes transport time from phone to this code is
-																	// instantaneous
+		double imageCaptureTimestamp = frame.getImageCaptureTimestamp(); // assumes transport time from camera to roboRIO is
+																		 // instantaneous
 
-		ArrayList<VisionTargetList.Target> targets = new ArrayList<>();	// initially empty
+		numTargets = 0;
 
-		if (cameraSelection.getIsTargetFound()) 
+		if (frame.targetFound) 
 		{
-			boundingRectangle = cameraSelection.getBoundingRectangle();
+			cameraSelection.getBoundingRectangle(frame, boundingRectangle);
 
-			if (boundingRectangle.xMin > 0 && boundingRectangle.xMax < (Limelight.kImageWidthPixels-1) && 
-			    boundingRectangle.yMin > 0 && boundingRectangle.yMax < (Limelight.kImageHeightPixels-1))
+			if (isInsideImage(boundingRectangle))
 			{
 				// no corners at limits (indicating we are too close, and should just use a previous value)					
-				BoundingAngles boundingAngles = cameraSelection.getBoundingAnglesRad(boundingRectangle);
+				cameraSelection.getBoundingAnglesRad(boundingRectangle, boundingAngles);
 
-				double hAngle = cameraSelection.getTargetHorizontalAngleRad();
-				double vAngle = cameraSelection.getTargetVerticalAngleRad();
+				double hAngle = frame.hAngleRad;
+				double vAngle = frame.vAngleRad;
 				double hWidth = boundingAngles.hWidthRad;
 				double vWidth = boundingAngles.vWidthRad;
 
-				VisionTargetList.Target target = new VisionTargetList.Target(hAngle, vAngle, hWidth, vWidth);
-				targets.add(target);
+				targets[numTargets++].set(hAngle, vAngle, hWidth, vWidth);
+			}
+
+			getRawTargets();
+		}
+
+		visionTargetList.set(imageCaptureTimestamp, cameraFrame, targets, numTargets);
+	}
+
+	// add targets found from the raw contours that are not part of the primary target
+	private void getRawTargets()
+	{
+		int numStrips = 0;
+		for (int k = 0; k < Limelight.kNumRawContours; k++)
+		{
+			double area = frame.rawArea[k];
+			if (area <= 0)
+				continue;	// no contour
+
+			double xCenter = cameraSelection.normalizedToHorizPixel(frame.rawX[k]);
+			double yCenter = cameraSelection.normalizedToVertPixel(frame.rawY[k]);
+			if (xCenter >= boundingRectangle.xMin && xCenter <= boundingRectangle.xMax &&
+				yCenter >= boundingRectangle.yMin && yCenter <= boundingRectangle.yMax)
+				continue;	// part of the primary target
+
+			// area is percent of image
+			double areaPixels = area / 100.0 * Limelight.kImageWidthPixels * Limelight.kImageHeightPixels;
+			stripX[numStrips] = xCenter;
+			stripY[numStrips] = yCenter;
+			stripScale[numStrips] = Math.sqrt(areaPixels / kStripAreaSqInches);
+			stripPaired[numStrips] = false;
+			numStrips++;
+		}
+
+		// two strips that are level with each other, and a target's width apart, make up a whole target
+		for (int i = 0; i < numStrips; i++)
+		{
+			for (int j = i+1; j < numStrips && !stripPaired[i]; j++)
+			{
+				if (stripPaired[j])
+					continue;
+				double scale = (stripScale[i] + stripScale[j]) / 2;
+				double spacing = Math.abs(stripX[i] - stripX[j]) / scale;
+				if (Math.abs(stripY[i] - stripY[j]) / scale < kStripBoundingHeightInches/2 &&
+					Math.abs(spacing - kStripSpacingInches) < kStripPairTolerance * kStripSpacingInches)
+				{
+					stripPaired[i] = true;
+					stripPaired[j] = true;
+					rawRectangle.xMin = Math.min(stripX[i], stripX[j]) - kStripBoundingWidthInches/2 * scale;
+					rawRectangle.xMax = Math.max(stripX[i], stripX[j]) + kStripBoundingWidthInches/2 * scale;
+					rawRectangle.yMin = Math.min(stripY[i], stripY[j]) - kStripBoundingHeightInches/2 * scale;
+					rawRectangle.yMax = Math.max(stripY[i], stripY[j]) + kStripBoundingHeightInches/2 * scale;
+					addRawTarget(Constants.kTargetWidthInches, Constants.kTargetHeightInches);
+				}
 			}
 		}
 
-		visionTargetList.set(imageCaptureTimestamp, targets);
+		// the rest are single strips
+		for (int i = 0; i < numStrips; i++)
+		{
+			if (stripPaired[i])
+				continue;
+			rawRectangle.xMin = stripX[i] - kStripBoundingWidthInches/2 * stripScale[i];
+			rawRectangle.xMax = stripX[i] + kStripBoundingWidthInches/2 * stripScale[i];
+			rawRectangle.yMin = stripY[i] - kStripBoundingHeightInches/2 * stripScale[i];
+			rawRectangle.yMax = stripY[i] + kStripBoundingHeightInches/2 * stripScale[i];
+			addRawTarget(kStripBoundingWidthInches, kStripBoundingHeightInches);
+		}
+	}
+
+	// add a target with bounding box rawRectangle, measuring _widthInches x _heightInches
+	private void addRawTarget(double _widthInches, double _heightInches)
+	{
+		if (numTargets >= targets.length || !isInsideImage(rawRectangle))
+			return;
+		cameraSelection.getBoundingAnglesRad(rawRectangle, rawAngles);
+
+		double xCenter = (rawRectangle.xMin + rawRectangle.xMax) / 2;
+		double yCenter = (rawRectangle.yMin + rawRectangle.yMax) / 2;
+		double hAngle = -cameraSelection.horizPixelToAngleRad(xCenter);	// turns to left result in positive angle, as for the primary target
+		double vAngle = -cameraSelection.vertPixelToAngleRad(yCenter);	// pixels increase downward
+		targets[numTargets++].set(hAngle, vAngle, rawAngles.hWidthRad, rawAngles.vWidthRad, _widthInches, _heightInches, false);
+	}
+
+	private static boolean isInsideImage(BoundingRectangle _rect)
+	{
+		return (_rect.xMin > 0 && _rect.xMax < (Limelight.kImageWidthPixels-1) && 
+				_rect.yMin > 0 && _rect.yMax < (Limelight.kImageHeightPixels-1));
 	}
 
 
@@ -89,11 +232,16 @@ public class VisionLoop implements Loop {
         public void log()
         {
 			put("VisionLoop/selectedCamera", cameraSelection.getTableName());
-			put("VisionLoop/isTargetFound", cameraSelection.getIsTargetFound());
+			put("VisionLoop/isTargetFound", frame.targetFound);
+			put("VisionLoop/numTargets", numTargets);
 			put("VisionLoop/Corners.xMin", boundingRectangle.xMin);
 			put("VisionLoop/Corners.xMax", boundingRectangle.xMax);
 			put("VisionLoop/Corners.yMin", boundingRectangle.yMin);
 			put("VisionLoop/Corners.yMax", boundingRectangle.yMax);
+			put("VisionLoop/numFrames", numFrames);
+			put("VisionLoop/numRepeatedCycles", numRepeatedCycles);
+			numFrames = 0;
+			numRepeatedCycles = 0;
         }
     };
     
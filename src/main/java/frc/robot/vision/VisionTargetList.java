@@ -1,47 +1,102 @@
 package frc.robot.vision;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import frc.robot.Constants;
+import frc.robot.command_status.FrameTree;
+import frc.robot.lib.sensors.Limelight;
 import frc.robot.lib.util.DataLogger;
 
 public class VisionTargetList
 {
 	/*
 	 * The VisionTargetListState keeps track of multiple targets
+	 * 
+	 * Targets are copied in and out of a preallocated array, so a frame's
+	 * targets are passed from VisionLoop to GoalStateLoop without allocating.
 	 */
 
+	public static final int kMaxTargets = 1 + Limelight.kNumRawContours;	// primary target plus raw contours
+
 	private static VisionTargetList instance = new VisionTargetList();
 	public static VisionTargetList getInstance() { return instance; }	
 
-	private List<Target> targets = new ArrayList<>();
+	private final Target[] targets = new Target[kMaxTargets];
+	private int numTargets = 0;
 	private double imageCaptureTimestamp = 0;
+	private FrameTree.Frame cameraFrame = FrameTree.Frame.HATCH_CAMERA;	// camera that took the frame
+	private long frameNumber = 0;		// incremented each time a new camera frame is set
 	
 	
 	// Synchronized get/set functions for access from other threads
+	// (synchronize on this VisionTargetList to read several values from the same frame)
 	
-	synchronized public void set(double _imageCaptureTimestamp, List<Target> _targets)
+	public VisionTargetList()
+	{
+		for (int k = 0; k < kMaxTargets; k++)
+			targets[k] = new Target();
+	}
+	
+	/**
+	 * Copy the first _numTargets of _targets (up to kMaxTargets) as the latest
+	 * frame, taken by the camera at _cameraFrame
+	 */
+	synchronized public void set(double _imageCaptureTimestamp, FrameTree.Frame _cameraFrame, Target[] _targets, int _numTargets)
 	{ 
 		imageCaptureTimestamp = _imageCaptureTimestamp;
-		targets = _targets; 
+		cameraFrame = _cameraFrame;
+		numTargets = Math.min(_numTargets, kMaxTargets);
+		for (int k = 0; k < numTargets; k++)
+			targets[k].set(_targets[k]);
+		frameNumber++;
+	}
+
+	/**
+	 * Copy the latest frame's targets into _targets (which must hold kMaxTargets)
+	 * @return number of targets copied
+	 */
+	synchronized public int getTargets(Target[] _targets)
+	{
+		for (int k = 0; k < numTargets; k++)
+			_targets[k].set(targets[k]);
+		return numTargets;
 	}
-	synchronized public List<Target> getTargets() 			{ return targets; }
+	synchronized public int getNumTargets()					{ return numTargets; }
 	synchronized public double getImageCaptureTimestamp()	{ return imageCaptureTimestamp; }
+	synchronized public FrameTree.Frame getCameraFrame()		{ return cameraFrame; }
+	synchronized public long getFrameNumber()				{ return frameNumber; }
 
 
 	private final DataLogger logger = new DataLogger()
 	{
+		final int numTargetsChannel = addIntChannel("VisionTargetList/numTargets");
+		final int[] hCenterChannels = new int[kMaxTargets];
+		final int[] hWidthChannels  = new int[kMaxTargets];
+		final int[] vCenterChannels = new int[kMaxTargets];
+		final int[] vWidthChannels  = new int[kMaxTargets];
+		{
+			for (int k = 0; k < kMaxTargets; k++)
+			{
+				String prefix = "VisionTargetList/Target" + k;
+				hCenterChannels[k] = addDoubleChannel(prefix + "/hCenter");
+				hWidthChannels[k]  = addDoubleChannel(prefix + "/hWidth");
+				vCenterChannels[k] = addDoubleChannel(prefix + "/vCenter");
+				vWidthChannels[k]  = addDoubleChannel(prefix + "/vWidth");
+			}
+		}
+
 		@Override
 		public void log()
 		{
-			int k=0;
-			for (Target target : targets)
+			synchronized (VisionTargetList.this)
 			{
-                put(String.format("VisionTargetList/Target%d/hCenter", k), target.hCenter);
-                put(String.format("VisionTargetList/Target%d/hWidth",  k), target.hWidth);
-                put(String.format("VisionTargetList/Target%d/vCenter", k), target.vCenter);
-                put(String.format("VisionTargetList/Target%d/vWidth",  k), target.vWidth);
-				k++;
+				set(numTargetsChannel, numTargets);
+				for (int k = 0; k < numTargets; k++)
+				{
+					Target target = targets[k];
+					set(hCenterChannels[k], target.hCenter);
+					set(hWidthChannels[k],  target.hWidth);
+					set(vCenterChannels[k], target.vCenter);
+					set(vWidthChannels[k],  target.vWidth);
+				}
 			}
 		}
 	};
@@ -64,18 +119,49 @@ public class VisionTargetList
 		protected double hWidth; 	// horizontal angular width of target, in radians
 		protected double vWidth; 	//   vertical angular width of target, in radians
 
+		protected double widthInches = Constants.kTargetWidthInches;	// actual size of what was measured (a whole target, or one strip of tape)
+		protected double heightInches = Constants.kTargetHeightInches;
+		protected boolean primary = true;		// the Limelight's grouped target, rather than one found from raw contours
+
+		public Target()
+		{
+		}
+
 		public Target(double _hCenter, double _vCenter, double _hWidth, double _vWidth)
+		{
+			set(_hCenter, _vCenter, _hWidth, _vWidth);
+		}
+
+		// a whole target, as found by the Limelight
+		public Target set(double _hCenter, double _vCenter, double _hWidth, double _vWidth)
+		{
+			return set(_hCenter, _vCenter, _hWidth, _vWidth, Constants.kTargetWidthInches, Constants.kTargetHeightInches, true);
+		}
+
+		public Target set(double _hCenter, double _vCenter, double _hWidth, double _vWidth, double _widthInches, double _heightInches, boolean _primary)
 		{
 			hCenter = _hCenter;
 			vCenter = _vCenter;
 			hWidth = _hWidth;
 			vWidth = _vWidth;
+			widthInches = _widthInches;
+			heightInches = _heightInches;
+			primary = _primary;
+			return this;
+		}
+
+		public Target set(Target _target)
+		{
+			return set(_target.hCenter, _target.vCenter, _target.hWidth, _target.vWidth, _target.widthInches, _target.heightInches, _target.primary);
 		}
 
 		public double getHorizontalAngle()	{ return hCenter; }
 		public double getVerticalAngle()	{ return vCenter; }
 		public double getHorizontalWidth()	{ return hWidth; }
 		public double getVerticalWidth()	{ return vWidth; }
+		public double getWidthInches()		{ return widthInches; }
+		public double getHeightInches()		{ return heightInches; }
+		public boolean isPrimary()			{ return primary; }
 
 		public String toString()
 		{
@@ -0,0 +1,133 @@
+package frc.robot.auto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import frc.robot.auto.modes.SquarePatternMode;
+import frc.robot.command_status.DriveCommand;
+import frc.robot.command_status.DriveState;
+import frc.robot.command_status.RobotState;
+import frc.robot.lib.util.Clock;
+import frc.robot.lib.util.Kinematics;
+import frc.robot.lib.util.Pose;
+import frc.robot.lib.util.SimulatedClock;
+import frc.robot.loops.CycleContext;
+import frc.robot.loops.Loop;
+import frc.robot.loops.LoopController;
+import frc.robot.loops.RobotStateLoop;
+import frc.robot.subsystems.Drive;
+
+/**
+ * Runs a full 15 second autonomous period off the robot, on a SimulatedClock.
+ *
+ * DriveLoop (the Talon SRXs) is replaced by SimulatedDrivetrain, which
+ * fills DriveState from the commanded wheel speeds.  Everything else is the
+ * robot's own code: the auto mode's actions, PathFollower, Drive's velocity
+ * loop, and RobotStateLoop's odometry, all timed by the LoopController.
+ */
+public class HeadlessAutoTest
+{
+	public static final double kAutoPeriod = 15.0;			// seconds
+	public static final double kOpenLoopMaxSpeed = 150.0;	// inches/sec at full open loop output
+
+	/**
+	 * Ideal drivetrain: the wheels follow the commanded velocity exactly, and
+	 * the gyro turns as the wheel speeds say it should
+	 */
+	static class SimulatedDrivetrain implements Loop
+	{
+		final Drive drive = Drive.getInstance();
+		final DriveState driveState = DriveState.getInstance();
+		double lDistance, rDistance, heading;
+		double maxX, maxY;		// furthest the robot got, from odometry
+
+		@Override
+		public void onStart() {}
+
+		@Override
+		public void onLoop(CycleContext _context)
+		{
+			DriveCommand cmd = drive.getCommand();
+			double lSpeed = 0;
+			double rSpeed = 0;
+			switch (cmd.getDriveControlMode())
+			{
+			case VELOCITY_SETPOINT:
+			case VELOCITY_HEADING:
+				lSpeed = cmd.getLeftMotor();
+				rSpeed = cmd.getRightMotor();
+				break;
+			case OPEN_LOOP:
+				lSpeed = cmd.getLeftMotor() * kOpenLoopMaxSpeed;
+				rSpeed = cmd.getRightMotor() * kOpenLoopMaxSpeed;
+				break;
+			default:
+				break;
+			}
+
+			double dt = _context.getDt();
+			lDistance += lSpeed * dt;
+			rDistance += rSpeed * dt;
+			heading += Kinematics.forwardKinematicsAngular(lSpeed, rSpeed) * dt;
+
+			driveState.setLeftDistanceInches(lDistance);
+			driveState.setRightDistanceInches(rDistance);
+			driveState.setLeftSpeedInchesPerSec(lSpeed);
+			driveState.setRightSpeedInchesPerSec(rSpeed);
+			driveState.setHeading(heading);
+
+			Pose pose = RobotState.getInstance().getLatestFieldToVehicle();
+			maxX = Math.max(maxX, pose.getX());
+			maxY = Math.max(maxY, pose.getY());
+		}
+
+		@Override
+		public void onStop() {}
+	}
+
+	@Test
+	public void squarePatternModeRunsHeadless()
+	{
+		Clock fpgaClock = Clock.getInstance();
+		SimulatedClock clock = new SimulatedClock();
+		Clock.setInstance(clock);		// before creating the LoopController, which gets its periodic task from the Clock
+		AutoModeBase.logToFile = false;
+		AutoModeBase.logToSmartDashboard = false;
+		try
+		{
+			SimulatedDrivetrain drivetrain = new SimulatedDrivetrain();
+			LoopController loopController = new LoopController();
+			loopController.register(Drive.getInstance().getVelocityPIDLoop());
+			loopController.register(drivetrain);
+			loopController.register(RobotStateLoop.getInstance());
+
+			AutoModeBase autoMode = new SquarePatternMode();
+			RobotState.getInstance().reset(autoMode.getInitialPose());
+			loopController.start();
+
+			// end of the autonomous period, as when the Driver Station disables the robot
+			clock.createPeriodicTask(autoMode::stop).startPeriodic(kAutoPeriod);
+
+			long startNs = System.nanoTime();
+			autoMode.run();		// the loops run whenever the mode's actions sleep on the SimulatedClock
+			double elapsed = (System.nanoTime() - startNs) * 1e-9;
+			loopController.stop();
+
+			System.out.printf("%.1f s autonomous period ran in %.0f ms%n", clock.getTime(), elapsed * 1000);
+			assertEquals(kAutoPeriod, clock.getTime(), 2 * loopController.kPeriod);
+			assertTrue("ran slower than real time", elapsed < kAutoPeriod);
+
+			// drove at least the first two sides of the 96 x 72 inch square
+			assertTrue("x only reached " + drivetrain.maxX, drivetrain.maxX > 90.0);
+			assertTrue("y only reached " + drivetrain.maxY, drivetrain.maxY > 66.0);
+		}
+		finally
+		{
+			Clock.setInstance(fpgaClock);
+			AutoModeBase.logToFile = true;
+			AutoModeBase.logToSmartDashboard = true;
+		}
+	}
+}
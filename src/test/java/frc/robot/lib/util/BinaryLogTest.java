@@ -0,0 +1,121 @@
+package frc.robot.lib.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+/**
+ * Writes the same rows through BinaryLogWriter and CsvLogWriter, and checks
+ * that reading the binary log back, and converting it, give the same values
+ * and the same CSV.
+ */
+public class BinaryLogTest
+{
+	private static final long kStartTimeMillis = 1551435300000L;
+	private static final double kStartTimestamp = 12.5;
+
+	private static AsyncLogWriter.Row header(String... _names)
+	{
+		AsyncLogWriter.Row row = new AsyncLogWriter.Row();
+		row.clear(true, kStartTimeMillis, kStartTimestamp);
+		row.addColumn(_names[0], DataLogger.ChannelType.DOUBLE);
+		row.addColumn(_names[1], DataLogger.ChannelType.INT);
+		row.addColumn(_names[2], DataLogger.ChannelType.BOOLEAN);
+		row.addColumn(_names[3], DataLogger.ChannelType.STRING);
+		return row;
+	}
+
+	private static AsyncLogWriter.Row data(int _k, long _timeMillis)
+	{
+		AsyncLogWriter.Row row = new AsyncLogWriter.Row();
+		row.clear(false, _timeMillis, kStartTimestamp + 0.02 * _k);
+		row.addDouble(1.25 * _k);
+		if (_k % 3 == 0)
+			row.addEmpty();		// not written this row
+		else
+			row.addInt(-7 * _k);
+		row.addBoolean(_k % 2 == 0);
+		row.addString((_k < 5) ? "DISABLED" : "AUTO");
+		return row;
+	}
+
+	private static void write(AsyncLogWriter.Output _output, File _file, AsyncLogWriter.Row[] _rows) throws IOException
+	{
+		_output.open(_file);
+		for (AsyncLogWriter.Row row : _rows)
+			_output.write(row);
+		_output.flush();
+	}
+
+	private static File tempFile(String _suffix) throws IOException
+	{
+		File file = File.createTempFile("BinaryLogTest", _suffix);
+		file.deleteOnExit();
+		return file;
+	}
+
+	@Test
+	public void roundTrip() throws IOException
+	{
+		String[] names = { "RobotState/positionX", "Drive/errors", "Drive/enabled", "Robot/mode" };
+		AsyncLogWriter.Row[] rows = new AsyncLogWriter.Row[11];
+		rows[0] = header(names);
+		long timeMillis = kStartTimeMillis;
+		for (int k = 0; k < 10; k++)
+		{
+			timeMillis += (k == 6) ? 3600000 : 20 + (k % 3);	// jitter, and the Driver Station setting the clock
+			rows[k + 1] = data(k, timeMillis);
+		}
+
+		File bin = tempFile(".bin");
+		File csv = tempFile(".csv");
+		File converted = tempFile(".csv");
+		write(new BinaryLogWriter(kStartTimeMillis, kStartTimestamp), bin, rows);
+		write(new CsvLogWriter(kStartTimeMillis), csv, rows);
+
+		// read back
+		BinaryLogReader reader = new BinaryLogReader(bin);
+		assertEquals(kStartTimeMillis, reader.getStartTimeMillis());
+		assertEquals(kStartTimestamp, reader.getStartTimestamp(), 0.0);
+		for (int k = 0; k < 10; k++)
+		{
+			assertTrue(reader.next());
+			assertEquals(k == 0, reader.schemaChanged());
+			assertEquals(4, reader.getNumColumns());
+			assertEquals(names[3], reader.getColumnName(3));
+			assertEquals(rows[k + 1].timeMillis, reader.getTimeMillis());
+			assertEquals(rows[k + 1].timestamp, reader.getTimestamp(), 0.0);
+			assertEquals(1.25 * k, reader.getDouble(0), 0.0);
+			assertEquals(k % 3 != 0, reader.isPresent(1));
+			if (k % 3 != 0)
+				assertEquals(-7 * k, reader.getInt(1));
+			assertEquals(k % 2 == 0, reader.getBoolean(2));
+			assertEquals((k < 5) ? "DISABLED" : "AUTO", reader.getString(3));
+		}
+		assertFalse(reader.next());
+
+		// converted binary log matches the CSV log
+		assertEquals(10, BinaryLogConverter.convert(bin, converted, null));
+		assertEquals(new String(Files.readAllBytes(csv.toPath()), StandardCharsets.UTF_8),
+					 new String(Files.readAllBytes(converted.toPath()), StandardCharsets.UTF_8));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherVersions() throws IOException
+	{
+		File bin = tempFile(".bin");
+		write(new BinaryLogWriter(kStartTimeMillis, kStartTimestamp), bin, new AsyncLogWriter.Row[0]);
+
+		byte[] bytes = Files.readAllBytes(bin.toPath());
+		bytes[4] = (byte) (BinaryLogFormat.kVersion + 1);		// version follows the 4 byte magic number
+		Files.write(bin.toPath(), bytes);
+		new BinaryLogReader(bin);
+	}
+}
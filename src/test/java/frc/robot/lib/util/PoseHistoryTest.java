@@ -0,0 +1,101 @@
+package frc.robot.lib.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+
+public class PoseHistoryTest
+{
+	private static final double kEps = 1e-9;
+
+	private static void assertPose(double _x, double _y, double _heading, Pose _pose)
+	{
+		assertEquals(_x, _pose.getX(), kEps);
+		assertEquals(_y, _pose.getY(), kEps);
+		assertEquals(_heading, _pose.getHeading(), kEps);
+	}
+
+	@Test
+	public void inOrderAdd()
+	{
+		PoseHistory history = new PoseHistory(4);
+		history.add(1.0, 10, 0, 0);
+		history.add(2.0, 20, 0, 0);
+		history.add(3.0, 30, 0, 0);
+
+		assertEquals(3, history.size());
+		assertEquals(3.0, history.getLatestTimestamp(), kEps);
+		assertPose(30, 0, 0, history.getLatest());
+		assertPose(15, 0, 0, history.getInterpolated(1.5));
+		assertPose(10, 0, 0, history.getInterpolated(0.0));		// before oldest
+		assertPose(30, 0, 0, history.getInterpolated(9.0));		// after newest
+	}
+
+	@Test
+	public void replace()
+	{
+		PoseHistory history = new PoseHistory(4);
+		history.add(1.0, 10, 0, 0);
+		history.add(2.0, 20, 0, 0);
+		history.add(2.0, 25, 5, 1);		// replaces newest
+		history.add(1.0, 11, 0, 0);		// replaces oldest
+
+		assertEquals(2, history.size());
+		assertPose(25, 5, 1, history.getLatest());
+		assertPose(11, 0, 0, history.getInterpolated(1.0));
+	}
+
+	@Test
+	public void outOfOrderInsert()
+	{
+		PoseHistory history = new PoseHistory(4);
+		history.add(1.0, 10, 0, 0);
+		history.add(3.0, 30, 0, 0);
+		history.add(2.0, 50, 0, 0);		// late sample goes between the others
+
+		assertEquals(3, history.size());
+		assertEquals(3.0, history.getLatestTimestamp(), kEps);
+		assertPose(50, 0, 0, history.getInterpolated(2.0));
+		assertPose(30, 0, 0, history.getInterpolated(1.5));
+		assertPose(40, 0, 0, history.getInterpolated(2.5));
+	}
+
+	@Test
+	public void fullBufferInsert()
+	{
+		PoseHistory history = new PoseHistory(3);
+		history.add(1.0, 10, 0, 0);
+		history.add(2.0, 20, 0, 0);
+		history.add(3.0, 30, 0, 0);
+
+		// newest pose drops the oldest
+		history.add(4.0, 40, 0, 0);
+		assertEquals(3, history.size());
+		assertPose(20, 0, 0, history.getInterpolated(0.0));
+
+		// late pose in the middle drops the oldest
+		history.add(3.5, 35, 0, 0);
+		assertEquals(3, history.size());
+		assertPose(30, 0, 0, history.getInterpolated(0.0));
+		assertPose(35, 0, 0, history.getInterpolated(3.5));
+
+		// pose older than everything kept is ignored
+		history.add(0.5, 5, 0, 0);
+		assertEquals(3, history.size());
+		assertPose(30, 0, 0, history.getInterpolated(0.0));
+		assertPose(40, 0, 0, history.getLatest());
+	}
+
+	@Test
+	public void latestIsNotCallersPose()
+	{
+		PoseHistory history = new PoseHistory(4);
+		Pose pose = new Pose(10, 20, 1);
+		history.add(1.0, pose);
+		pose.set(0, 0, 0);
+
+		assertNotSame(pose, history.getLatest());
+		assertPose(10, 20, 1, history.getLatest());
+	}
+}